@@ -0,0 +1,370 @@
+package logic;
+
+import model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Latent-factor recommender trained with implicit-feedback alternating
+ * least squares (Hu, Koren and Volinsky) on the binary watch matrix.
+ *
+ * A watched movie has preference 1 and confidence 1 + alpha, everything
+ * else preference 0 and confidence 1. Each half-iteration fixes one side and
+ * solves a small f x f system per row of the other side; rows are solved in
+ * parallel. Factors live in flat float[] arrays (row * factors + k), with no
+ * per-user objects.
+ *
+ * Recommendation folds the user's watched set into a fresh user vector with
+ * the same solve, so users that were not part of training work too, then
+ * ranks every unwatched movie by dot product.
+ */
+public final class AlsRecommender implements MovieRecommender {
+
+    // "MALS" - movie ALS model
+    private static final int MAGIC = 0x4D414C53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * 4;
+
+    private final int factors;
+    private final float lambda;
+    private final float alpha;
+    private final int userCount;
+    private final int movieCount;
+    private final float[] userFactors;
+    private final float[] itemFactors;
+    // Y^T Y of the item factors, shared by every fold-in
+    private final double[] itemGram;
+
+    private final ThreadLocal<Solver> solver;
+
+    private AlsRecommender(int factors, float lambda, float alpha, int userCount, int movieCount,
+                           float[] userFactors, float[] itemFactors, double[] itemGram) {
+        this.factors = factors;
+        this.lambda = lambda;
+        this.alpha = alpha;
+        this.userCount = userCount;
+        this.movieCount = movieCount;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.itemGram = itemGram;
+        this.solver = ThreadLocal.withInitial(() -> new Solver(factors));
+    }
+
+    /**
+     * Trains the model on the watch matrix of the parsed users.
+     *
+     * @param catalog     the movie catalog resolving watched IDs
+     * @param users       the parsed users; null entries count as empty
+     * @param factors     latent dimension
+     * @param iterations  number of user + item half-iteration pairs
+     * @param lambda      L2 regularization
+     * @param alpha       confidence boost of a watched movie
+     * @param parallelism worker threads for the row solves
+     * @param seed        seed of the initial factors
+     * @return the trained model
+     */
+    public static AlsRecommender train(MovieCatalog catalog, List<User> users, int factors, int iterations,
+                                       float lambda, float alpha, int parallelism, long seed) {
+        if (factors < 1 || iterations < 0 || lambda <= 0 || alpha < 0 || parallelism < 1) {
+            throw new IllegalArgumentException("ERROR: Invalid ALS parameters");
+        }
+        List<User> input = users == null ? List.of() : users;
+        int userCount = input.size();
+        int movieCount = catalog.size();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            //--- Watch matrix in CSR, by user and by movie ---//
+            int[][] watched = new int[userCount][];
+            pool.submit(() -> IntStream.range(0, userCount).parallel().forEach(u -> {
+                User user = input.get(u);
+                watched[u] = user == null || user.watchedMovies() == null
+                        ? new int[0] : catalog.ordinalsOf(user.watchedMovies()).toArray();
+            })).join();
+
+            int[] userOffsets = new int[userCount + 1];
+            int[] movieOffsets = new int[movieCount + 1];
+            for (int u = 0; u < userCount; u++) {
+                userOffsets[u + 1] = userOffsets[u] + watched[u].length;
+                for (int m : watched[u]) {
+                    movieOffsets[m + 1]++;
+                }
+            }
+            for (int m = 0; m < movieCount; m++) {
+                movieOffsets[m + 1] += movieOffsets[m];
+            }
+            int[] userMovies = new int[userOffsets[userCount]];
+            int[] movieUsers = new int[userOffsets[userCount]];
+            int[] fill = new int[movieCount];
+            for (int u = 0; u < userCount; u++) {
+                System.arraycopy(watched[u], 0, userMovies, userOffsets[u], watched[u].length);
+                for (int m : watched[u]) {
+                    movieUsers[movieOffsets[m] + fill[m]++] = u;
+                }
+                watched[u] = null;
+            }
+
+            //--- Alternating solves ---//
+            Random random = new Random(seed);
+            float[] userFactors = new float[userCount * factors];
+            float[] itemFactors = new float[movieCount * factors];
+            float scale = (float) (0.1 / Math.sqrt(factors));
+            for (int i = 0; i < itemFactors.length; i++) {
+                itemFactors[i] = (float) random.nextGaussian() * scale;
+            }
+
+            ThreadLocal<Solver> solvers = ThreadLocal.withInitial(() -> new Solver(factors));
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                double[] itemGram = gram(pool, itemFactors, movieCount, factors);
+                pool.submit(() -> IntStream.range(0, userCount).parallel().forEach(u ->
+                        solvers.get().solveRow(itemFactors, itemGram, userMovies, userOffsets[u], userOffsets[u + 1],
+                                lambda, alpha, userFactors, u * factors))).join();
+
+                double[] userGram = gram(pool, userFactors, userCount, factors);
+                pool.submit(() -> IntStream.range(0, movieCount).parallel().forEach(m ->
+                        solvers.get().solveRow(userFactors, userGram, movieUsers, movieOffsets[m], movieOffsets[m + 1],
+                                lambda, alpha, itemFactors, m * factors))).join();
+            }
+
+            return new AlsRecommender(factors, lambda, alpha, userCount, movieCount, userFactors, itemFactors,
+                    gram(pool, itemFactors, movieCount, factors));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public int[] recommend(CompressedBitmap watchedOrdinals, int k) {
+        if (k <= 0 || watchedOrdinals.isEmpty()) {
+            return new int[0];
+        }
+        int[] watched = watchedOrdinals.toArray();
+        Solver s = solver.get();
+        s.solveRow(itemFactors, itemGram, watched, 0, watched.length, lambda, alpha, s.userVector, 0);
+
+        TopKHeap heap = new TopKHeap(Math.min(k, movieCount));
+        int next = 0;
+        for (int m = 0; m < movieCount; m++) {
+            if (next < watched.length && watched[next] == m) {
+                next++;
+                continue;
+            }
+            float score = 0;
+            int base = m * factors;
+            for (int f = 0; f < factors; f++) {
+                score += s.userVector[f] * itemFactors[base + f];
+            }
+            heap.offer(score, m);
+        }
+        return heap.drainOrdinals();
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public int movieCount() {
+        return movieCount;
+    }
+
+    //------- Persistence -------//
+
+    /**
+     * Writes the model as: magic, version, factors, user count, movie count,
+     * then lambda and alpha, then the user and item factors, all little-endian.
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 8).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(factors).putInt(userCount).putInt(movieCount)
+                    .putInt(0).putFloat(lambda).putFloat(alpha).flip();
+            writeFully(channel, header);
+            writeFloats(channel, userFactors);
+            writeFloats(channel, itemFactors);
+        }
+    }
+
+    /**
+     * Loads a model written by {@link #save(Path)} through a memory map.
+     *
+     * @param path    the model file
+     * @param catalog the catalog the model will score; its size must match
+     * @return the model
+     * @throws IOException if the file is unreadable, corrupt or for another catalog
+     */
+    public static AlsRecommender load(Path path, MovieCatalog catalog) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.remaining() < HEADER_BYTES + 8 || map.getInt() != MAGIC) {
+                throw new IOException("ERROR: Not an ALS model file: " + path);
+            }
+            int version = map.getInt();
+            if (version != VERSION) {
+                throw new IOException("ERROR: Unsupported ALS model version " + version + ": " + path);
+            }
+            int factors = map.getInt();
+            int userCount = map.getInt();
+            int movieCount = map.getInt();
+            map.getInt(); // reserved
+            float lambda = map.getFloat();
+            float alpha = map.getFloat();
+            if (movieCount != catalog.size()) {
+                throw new IOException("ERROR: ALS model has " + movieCount + " movies, catalog has " + catalog.size());
+            }
+            long expected = HEADER_BYTES + 8 + 4L * factors * ((long) userCount + movieCount);
+            if (channel.size() != expected) {
+                throw new IOException("ERROR: Truncated ALS model file: " + path);
+            }
+
+            float[] userFactors = new float[userCount * factors];
+            float[] itemFactors = new float[movieCount * factors];
+            map.asFloatBuffer().get(userFactors);
+            map.position(map.position() + userFactors.length * 4);
+            map.asFloatBuffer().get(itemFactors);
+
+            ForkJoinPool pool = new ForkJoinPool(1);
+            try {
+                return new AlsRecommender(factors, lambda, alpha, userCount, movieCount, userFactors, itemFactors,
+                        gram(pool, itemFactors, movieCount, factors));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void writeFloats(FileChannel channel, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < values.length; ) {
+            buffer.clear();
+            int count = Math.min(values.length - i, buffer.capacity() / 4);
+            buffer.asFloatBuffer().put(values, i, count);
+            buffer.limit(count * 4);
+            writeFully(channel, buffer);
+            i += count;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    //------- Linear algebra -------//
+
+    // X^T X of a rows x factors matrix, summed in parallel chunks
+    private static double[] gram(ForkJoinPool pool, float[] matrix, int rows, int factors) {
+        int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, rows / 256));
+        return pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            double[] partial = new double[factors * factors];
+            int from = (int) ((long) rows * chunk / chunks);
+            int to = (int) ((long) rows * (chunk + 1) / chunks);
+            for (int r = from; r < to; r++) {
+                int base = r * factors;
+                for (int i = 0; i < factors; i++) {
+                    double vi = matrix[base + i];
+                    for (int j = 0; j <= i; j++) {
+                        partial[i * factors + j] += vi * matrix[base + j];
+                    }
+                }
+            }
+            return partial;
+        }).reduce((a, b) -> {
+            for (int i = 0; i < a.length; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        }).orElseGet(() -> new double[factors * factors])).join();
+    }
+
+    // Per-thread buffers for one row solve
+    private static final class Solver {
+        final int factors;
+        final double[] a;
+        final double[] b;
+        final float[] userVector;
+
+        Solver(int factors) {
+            this.factors = factors;
+            this.a = new double[factors * factors];
+            this.b = new double[factors];
+            this.userVector = new float[factors];
+        }
+
+        /**
+         * Solves (Y^T Y + alpha * sum y y^T + lambda I) x = (1 + alpha) * sum y
+         * over the fixed rows y listed in indices[from, to), writing x to out.
+         * gram holds Y^T Y in its lower triangle.
+         */
+        void solveRow(float[] fixed, double[] gram, int[] indices, int from, int to,
+                      float lambda, float alpha, float[] out, int outOffset) {
+            int n = factors;
+            System.arraycopy(gram, 0, a, 0, n * n);
+            Arrays.fill(b, 0);
+            for (int i = 0; i < n; i++) {
+                a[i * n + i] += lambda;
+            }
+            for (int p = from; p < to; p++) {
+                int base = indices[p] * n;
+                for (int i = 0; i < n; i++) {
+                    double yi = fixed[base + i];
+                    b[i] += (1 + alpha) * yi;
+                    for (int j = 0; j <= i; j++) {
+                        a[i * n + j] += alpha * yi * fixed[base + j];
+                    }
+                }
+            }
+
+            // Cholesky A = L L^T in the lower triangle, then two triangular solves
+            for (int j = 0; j < n; j++) {
+                double diagonal = a[j * n + j];
+                for (int k = 0; k < j; k++) {
+                    diagonal -= a[j * n + k] * a[j * n + k];
+                }
+                diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+                a[j * n + j] = diagonal;
+                for (int i = j + 1; i < n; i++) {
+                    double sum = a[i * n + j];
+                    for (int k = 0; k < j; k++) {
+                        sum -= a[i * n + k] * a[j * n + k];
+                    }
+                    a[i * n + j] = sum / diagonal;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                double sum = b[i];
+                for (int k = 0; k < i; k++) {
+                    sum -= a[i * n + k] * b[k];
+                }
+                b[i] = sum / a[i * n + i];
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                double sum = b[i];
+                for (int k = i + 1; k < n; k++) {
+                    sum -= a[k * n + i] * b[k];
+                }
+                b[i] = sum / a[i * n + i];
+            }
+            for (int i = 0; i < n; i++) {
+                out[outOffset + i] = (float) b[i];
+            }
+        }
+    }
+}
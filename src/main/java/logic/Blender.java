@@ -0,0 +1,121 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recommender that runs several {@link Scorer}s into one score buffer and
+ * ranks the weighted sum. Each thread keeps its own {@link ScoringContext}
+ * and heap, so adding scorers adds work but no per-user allocation.
+ *
+ * Configure it before use; the scorer list must not change while the
+ * blender is recommending.
+ */
+public final class Blender implements MovieRecommender {
+
+    private final MovieCatalog catalog;
+    private final List<Scorer> scorers = new ArrayList<>();
+    private float[] weights = new float[0];
+    private DiversityReranker diversity;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    public Blender(MovieCatalog catalog) {
+        this.catalog = catalog;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(new ScoringContext(catalog)));
+    }
+
+    /**
+     * Adds a scorer with the weight its scores are multiplied by.
+     *
+     * @return this blender
+     */
+    public Blender add(Scorer scorer, float weight) {
+        if (scorer == null || !Float.isFinite(weight)) {
+            throw new IllegalArgumentException("ERROR: Scorer must be set and its weight finite");
+        }
+        scorers.add(scorer);
+        weights = Arrays.copyOf(weights, scorers.size());
+        weights[scorers.size() - 1] = weight;
+        return this;
+    }
+
+    /**
+     * Re-ranks the blended top-K for genre variety.
+     *
+     * @param diversity the reranker, or null to keep the score order
+     * @return this blender
+     */
+    public Blender diversify(DiversityReranker diversity) {
+        this.diversity = diversity;
+        return this;
+    }
+
+    public int scorerCount() {
+        return scorers.size();
+    }
+
+    @Override
+    public int[] recommend(CompressedBitmap watchedOrdinals, int k) {
+        if (k <= 0 || watchedOrdinals.isEmpty() || catalog.isEmpty()) {
+            return new int[0];
+        }
+        Scratch s = scratch.get();
+        ScoringContext context = s.context;
+        context.reset(watchedOrdinals);
+        for (int i = 0; i < scorers.size(); i++) {
+            context.weight(weights[i]);
+            scorers.get(i).score(context);
+        }
+
+        TopKHeap heap = s.heap(Math.min(diversity != null ? diversity.poolSize(k) : k, catalog.size()));
+        for (int i = 0; i < context.touchedCount(); i++) {
+            int ordinal = context.touchedAt(i);
+            if (!watchedOrdinals.contains(ordinal)) {
+                heap.offer(context.scoreOf(ordinal), ordinal);
+            }
+        }
+        if (diversity == null) {
+            return heap.drainOrdinals();
+        }
+        int count = s.drainPool(heap);
+        return diversity.rerank(s.pool, s.poolScores, count, k);
+    }
+
+    // Per-thread context plus a heap kept while K stays the same
+    private static final class Scratch {
+        final ScoringContext context;
+        TopKHeap heap;
+        int[] pool = new int[0];
+        int[] poolKeys = new int[0];
+        float[] poolScores = new float[0];
+
+        Scratch(ScoringContext context) {
+            this.context = context;
+        }
+
+        TopKHeap heap(int k) {
+            if (heap == null || heap.capacity() != k) {
+                heap = new TopKHeap(k);
+            }
+            heap.clear();
+            return heap;
+        }
+
+        // Empties the heap into the pool arrays with float scores, best first
+        int drainPool(TopKHeap heap) {
+            int count = heap.size();
+            if (pool.length < count) {
+                pool = new int[count];
+                poolKeys = new int[count];
+                poolScores = new float[count];
+            }
+            heap.drain(pool, poolKeys);
+            for (int i = 0; i < count; i++) {
+                poolScores[i] = TopKHeap.scoreAsFloat(poolKeys[i]);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package logic;
+
+import model.Movie;
+import model.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies titles appended to the movies file without recomputing every user.
+ *
+ * Keeps a reverse index from genre code to the users liking it (as user
+ * index bitmaps) and from watched movie ID to its watchers. For a batch of
+ * new movies, a user's recommendations change when
+ * <ul>
+ *   <li>a new movie shares one of their liked genres and they have not
+ *       watched its ID, or</li>
+ *   <li>they had watched a new movie's ID before it was in the catalog, and
+ *       the genres it adds to their profile bring in an unwatched movie.</li>
+ * </ul>
+ * Only those users are reported and rewritten; "change" is at the level of
+ * recommended movies, so a new movie that only repeats a recommended title
+ * still counts.
+ *
+ * Not thread-safe; deltas are meant to be applied one after another.
+ */
+public final class CatalogDeltaIngest {
+
+    private final List<User> users;
+    private final Map<String, IntList> watchersById = new HashMap<>();
+    private MovieCatalog catalog;
+    private int maskWords;
+    // users * maskWords, row-major
+    private long[] likedGenres;
+    private CompressedBitmap[] usersByGenre;
+
+    /**
+     * Indexes the users against the catalog their last full run used.
+     *
+     * @param catalog the current catalog
+     * @param users   the parsed users; their list index identifies them
+     */
+    public CatalogDeltaIngest(MovieCatalog catalog, List<User> users) {
+        this.catalog = catalog;
+        this.users = users == null ? List.of() : users;
+        this.maskWords = catalog.maskWords();
+        this.likedGenres = new long[this.users.size() * maskWords];
+
+        List<IntList> genreUsers = new ArrayList<>();
+        long[] mask = catalog.newGenreMask();
+        for (int u = 0; u < this.users.size(); u++) {
+            User user = this.users.get(u);
+            if (user == null || user.watchedMovies() == null) continue;
+
+            for (String movieId : user.watchedMovies()) {
+                watchersById.computeIfAbsent(movieId, id -> new IntList(4)).add(u);
+            }
+            Arrays.fill(mask, 0);
+            catalog.ordinalsOf(user.watchedMovies()).forEach(ordinal -> catalog.orGenreMask(ordinal, mask));
+            System.arraycopy(mask, 0, likedGenres, u * maskWords, maskWords);
+            for (int w = 0; w < maskWords; w++) {
+                for (long bits = mask[w]; bits != 0; bits &= bits - 1) {
+                    int genre = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    while (genreUsers.size() <= genre) {
+                        genreUsers.add(new IntList(4));
+                    }
+                    genreUsers.get(genre).add(u);
+                }
+            }
+        }
+
+        usersByGenre = new CompressedBitmap[genreUsers.size()];
+        for (int genre = 0; genre < usersByGenre.length; genre++) {
+            IntList list = genreUsers.get(genre);
+            usersByGenre[genre] = CompressedBitmap.ofSorted(list.toArray(), list.size());
+        }
+    }
+
+    public MovieCatalog catalog() {
+        return catalog;
+    }
+
+    /**
+     * @return indexes of the users liking a genre (empty if none or unknown)
+     */
+    public CompressedBitmap usersLiking(int genreCode) {
+        return genreCode >= 0 && genreCode < usersByGenre.length ? usersByGenre[genreCode] : CompressedBitmap.EMPTY;
+    }
+
+    /**
+     * Parses the records appended after fromOffset and applies them.
+     *
+     * @param parser     the movie parser
+     * @param filePath   the movies file
+     * @param fromOffset the file size when the current catalog was parsed
+     * @return the delta
+     * @throws Exception as {@link MovieFileParser#readMovies}
+     */
+    public Delta ingest(MovieFileParser parser, String filePath, long fromOffset) throws Exception {
+        return ingest(parser.readMovies(filePath, null, fromOffset));
+    }
+
+    /**
+     * Appends the movies to the catalog and finds the affected users.
+     *
+     * @param added the new movies, in file order
+     * @return the extended catalog and the affected users
+     */
+    public Delta ingest(List<Movie> added) {
+        MovieCatalog previous = catalog;
+        MovieCatalog next = previous.extend(added);
+        int firstNew = previous.size();
+        growMasks(next.maskWords());
+
+        List<CompressedBitmap> reached = new ArrayList<>();
+
+        //--- New movies reach the users liking their genres, minus their watchers ---//
+        long[] movieGenres = next.newGenreMask();
+        for (int ordinal = firstNew; ordinal < next.size(); ordinal++) {
+            Arrays.fill(movieGenres, 0);
+            next.orGenreMask(ordinal, movieGenres);
+            List<CompressedBitmap> likers = new ArrayList<>();
+            for (int w = 0; w < maskWords; w++) {
+                for (long bits = movieGenres[w]; bits != 0; bits &= bits - 1) {
+                    likers.add(usersLiking((w << 6) + Long.numberOfTrailingZeros(bits)));
+                }
+            }
+            reached.add(CompressedBitmap.orAll(likers).andNot(watchers(next.movie(ordinal).id())));
+        }
+
+        //--- Watchers of a new ID gain its genres ---//
+        Map<Integer, IntList> newLikers = new HashMap<>();
+        IntList grownUsers = new IntList();
+        for (int ordinal = firstNew; ordinal < next.size(); ordinal++) {
+            IntList watchers = watchersById.get(next.movie(ordinal).id());
+            if (watchers == null) continue;
+
+            Arrays.fill(movieGenres, 0);
+            next.orGenreMask(ordinal, movieGenres);
+            for (int i = 0; i < watchers.size(); i++) {
+                int u = watchers.get(i);
+                int base = u * maskWords;
+                boolean gained = false;
+                for (int w = 0; w < maskWords; w++) {
+                    long fresh = movieGenres[w] & ~likedGenres[base + w];
+                    likedGenres[base + w] |= fresh;
+                    for (; fresh != 0; fresh &= fresh - 1) {
+                        newLikers.computeIfAbsent((w << 6) + Long.numberOfTrailingZeros(fresh),
+                                genre -> new IntList(4)).add(u);
+                        gained = true;
+                    }
+                }
+                if (gained) {
+                    grownUsers.add(u);
+                }
+            }
+        }
+        int[] grown = grownUsers.toArray();
+        Arrays.sort(grown);
+        IntList changedGrownUsers = new IntList();
+        for (int i = 0; i < grown.length; i++) {
+            if ((i == 0 || grown[i] != grown[i - 1]) && gainsRecommendation(next, grown[i], firstNew)) {
+                changedGrownUsers.add(grown[i]);
+            }
+        }
+        reached.add(CompressedBitmap.ofSorted(changedGrownUsers.toArray(), changedGrownUsers.size()));
+
+        //--- Fold the new likers into the reverse index ---//
+        for (Map.Entry<Integer, IntList> entry : newLikers.entrySet()) {
+            int genre = entry.getKey();
+            if (genre >= usersByGenre.length) {
+                int oldLength = usersByGenre.length;
+                usersByGenre = Arrays.copyOf(usersByGenre, genre + 1);
+                Arrays.fill(usersByGenre, oldLength, usersByGenre.length, CompressedBitmap.EMPTY);
+            }
+            int[] sorted = entry.getValue().toArray();
+            Arrays.sort(sorted);
+            usersByGenre[genre] = usersByGenre[genre].or(CompressedBitmap.of(sorted));
+        }
+
+        catalog = next;
+        return new Delta(next, added.size(), CompressedBitmap.orAll(reached).toArray());
+    }
+
+    /**
+     * Rewrites the recommendations of the affected users only.
+     *
+     * @param delta   the result of {@link #ingest}
+     * @param outPath the update file, created or truncated
+     * @return counters and timing for the run
+     * @throws IOException if writing fails
+     */
+    public RecommendationBatch.BatchStats writeUpdates(Delta delta, Path outPath) throws IOException {
+        return new RecommendationBatch(delta.catalog()).run(affectedUsers(delta), outPath);
+    }
+
+    /**
+     * @return the affected users, in user order
+     */
+    public List<User> affectedUsers(Delta delta) {
+        List<User> affected = new ArrayList<>(delta.affectedUsers().length);
+        for (int u : delta.affectedUsers()) {
+            affected.add(users.get(u));
+        }
+        return affected;
+    }
+
+    //--- Helpers ---//
+    private CompressedBitmap watchers(String movieId) {
+        IntList watchers = watchersById.get(movieId);
+        if (watchers == null) {
+            return CompressedBitmap.EMPTY;
+        }
+        int[] sorted = watchers.toArray();
+        Arrays.sort(sorted);
+        return CompressedBitmap.of(sorted);
+    }
+
+    // Whether the genres a user just gained bring in a movie they neither watched nor already had
+    private boolean gainsRecommendation(MovieCatalog next, int user, int firstNew) {
+        long[] liked = Arrays.copyOfRange(likedGenres, user * maskWords, (user + 1) * maskWords);
+        CompressedBitmap watched = next.ordinalsOf(users.get(user).watchedMovies());
+        // the profile before this delta: old-catalog watched movies only
+        long[] before = next.newGenreMask();
+        watched.forEach(ordinal -> {
+            if (ordinal < firstNew) next.orGenreMask(ordinal, before);
+        });
+        long[] gained = new long[liked.length];
+        for (int w = 0; w < liked.length; w++) {
+            gained[w] = liked[w] & ~before[w];
+        }
+        return !Recommendation.candidates(next, gained)
+                .andNot(Recommendation.candidates(next, before))
+                .andNot(watched)
+                .isEmpty();
+    }
+
+    private void growMasks(int words) {
+        if (words == maskWords) return;
+        long[] grown = new long[users.size() * words];
+        for (int u = 0; u < users.size(); u++) {
+            System.arraycopy(likedGenres, u * maskWords, grown, u * words, maskWords);
+        }
+        likedGenres = grown;
+        maskWords = words;
+    }
+
+    /**
+     * Outcome of one ingest.
+     *
+     * @param catalog       the extended catalog
+     * @param addedMovies   number of movies appended
+     * @param affectedUsers indexes of the users whose recommendations changed, ascending
+     */
+    public record Delta(MovieCatalog catalog, int addedMovies, int[] affectedUsers) {
+    }
+}
@@ -0,0 +1,561 @@
+package logic;
+
+import model.Movie;
+import model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary columnar snapshot of a parsed and validated catalog and user list,
+ * so a run over unchanged text files skips parsing.
+ *
+ * Layout, little-endian: a header (magic, version, checksum of the text
+ * sources, CRC32C of the payload, movie, genre, mask-word, user and posting
+ * counts, flags, payload length), then the columns
+ * <ol>
+ *   <li>genre names, titles and movie IDs: each an int offset column
+ *       (count + 1 entries) followed by one UTF-8 blob, padded to 4 bytes;</li>
+ *   <li>every movie's genre codes in file order, in CSR layout (offsets,
+ *       then codes);</li>
+ *   <li>per movie, the first ordinal with the same title;</li>
+ *   <li>the genre index: one serialized compressed bitmap per genre code,
+ *       padded to 8 bytes;</li>
+ *   <li>the genre masks, maskWords longs per movie;</li>
+ *   <li>user names and user IDs as offset-plus-blob columns;</li>
+ *   <li>watched movies in CSR layout: per user, the ascending ordinals of
+ *       the movies carrying a watched ID;</li>
+ *   <li>per user, how many watched IDs the catalog does not know.</li>
+ * </ol>
+ *
+ * {@link #load} maps and verifies the file, then builds a catalog over the
+ * mapping: the genre index, title index and masks are read as stored, and
+ * titles and movie IDs stay in the mapping, decoded one at a time as the
+ * catalog asks for them. Users are decoded as {@link #resolvedUsers()} is
+ * consumed, with their watched movies as stored ordinals. The whole file is
+ * one mapping, so a snapshot is limited to 2 GiB.
+ */
+public final class CatalogSnapshot {
+
+    // "MSNP" - movie snapshot
+    private static final int MAGIC = 0x4D534E50;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 56;
+    // header flag: some movies share a title
+    private static final int DUPLICATE_TITLES = 1;
+
+    private final MappedByteBuffer map;
+    private final long sourceChecksum;
+    private final MovieCatalog catalog;
+    private final int userCount;
+    // positions of the user columns in the mapping
+    private final int userNames;
+    private final int userIds;
+    private final int watched;
+    private final int unknownWatched;
+
+    private CatalogSnapshot(MappedByteBuffer map, long sourceChecksum, MovieCatalog catalog, int userCount,
+                            int userNames, int userIds, int watched, int unknownWatched) {
+        this.map = map;
+        this.sourceChecksum = sourceChecksum;
+        this.catalog = catalog;
+        this.userCount = userCount;
+        this.userNames = userNames;
+        this.userIds = userIds;
+        this.watched = watched;
+        this.unknownWatched = unknownWatched;
+    }
+
+    /**
+     * Checksum identifying the text sources: the CRC32C of the movies file in
+     * the high half and of the users file in the low half.
+     *
+     * @throws IOException if either file cannot be read
+     */
+    public static long sourceChecksum(Path moviesFile, Path usersFile) throws IOException {
+        return sourceChecksum(crc(moviesFile), crc(usersFile));
+    }
+
+    /**
+     * Same as {@link #sourceChecksum(Path, Path)} from file CRC32Cs the
+     * parsers took while reading.
+     */
+    public static long sourceChecksum(long moviesCrc, long usersCrc) {
+        return (moviesCrc << 32) | usersCrc;
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (MappedLines lines = new MappedLines(file, 0, MappedLines.DEFAULT_WINDOW_BYTES)) {
+            lines.checksum(crc, 0, lines.size());
+        }
+        return crc.getValue();
+    }
+
+    public long sourceChecksum() {
+        return sourceChecksum;
+    }
+
+    public MovieCatalog catalog() {
+        return catalog;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    /**
+     * @return the user at a position, with watched ordinals as stored
+     */
+    public ResolvedUser resolvedUser(int index) {
+        return new ResolvedUser(stringAt(map, userNames, userCount, index), stringAt(map, userIds, userCount, index),
+                watchedOrdinals(index), map.getInt(unknownWatched + 4 * index));
+    }
+
+    /**
+     * Decodes the users lazily, in file order, for
+     * {@link RecommendationBatch#runResolvedStreaming}.
+     */
+    public Stream<ResolvedUser> resolvedUsers() {
+        return IntStream.range(0, userCount).mapToObj(this::resolvedUser);
+    }
+
+    /**
+     * @return per catalog ordinal, how many stored users watched it
+     */
+    public int[] watchCounts() {
+        int[] counts = new int[catalog.size()];
+        int values = watched + 4 * (userCount + 1);
+        int total = map.getInt(watched + 4 * userCount);
+        for (int i = 0; i < total; i++) {
+            counts[map.getInt(values + 4 * i)]++;
+        }
+        return counts;
+    }
+
+    private int[] watchedOrdinals(int index) {
+        int from = map.getInt(watched + 4 * index);
+        int to = map.getInt(watched + 4 * (index + 1));
+        int values = watched + 4 * (userCount + 1);
+        int[] ordinals = new int[to - from];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = map.getInt(values + 4 * (from + i));
+        }
+        return ordinals;
+    }
+
+    //------- Loading -------//
+
+    /**
+     * Loads a snapshot only if it was written for the given text sources.
+     *
+     * @return the snapshot, or null if it is missing, stale, corrupt or of another version
+     */
+    public static CatalogSnapshot loadIfCurrent(Path path, long sourceChecksum) {
+        try {
+            CatalogSnapshot snapshot = load(path);
+            return snapshot.sourceChecksum() == sourceChecksum ? snapshot : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maps and verifies a snapshot written by {@link Builder#write(Path, long)}.
+     *
+     * @throws IOException if the file is unreadable, corrupt or of another version
+     */
+    public static CatalogSnapshot load(Path path) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("ERROR: Not a catalog snapshot: " + path);
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        if (map.getInt(0) != MAGIC) {
+            throw new IOException("ERROR: Not a catalog snapshot: " + path);
+        }
+        int version = map.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("ERROR: Unsupported catalog snapshot version " + version + ": " + path);
+        }
+        long sourceChecksum = map.getLong(8);
+        long payloadChecksum = map.getLong(16);
+        int movieCount = map.getInt(24);
+        int genreCount = map.getInt(28);
+        int maskWords = map.getInt(32);
+        int userCount = map.getInt(36);
+        int postingCount = map.getInt(40);
+        int flags = map.getInt(44);
+        long payloadBytes = map.getLong(48);
+        if (payloadBytes != map.capacity() - HEADER_BYTES) {
+            throw new IOException("ERROR: Truncated catalog snapshot: " + path);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(HEADER_BYTES, (int) payloadBytes));
+        if (crc.getValue() != payloadChecksum) {
+            throw new IOException("ERROR: Corrupt catalog snapshot: " + path);
+        }
+
+        //--- Movie columns: indexes read as stored, titles and IDs left in the mapping ---//
+        int at = HEADER_BYTES;
+        GenreDictionary genres = new GenreDictionary();
+        String[] names = new String[genreCount];
+        for (int code = 0; code < genreCount; code++) {
+            names[code] = stringAt(map, at, genreCount, code);
+            genres.intern(names[code]);
+        }
+        at = skipBlobColumn(map, at, genreCount);
+        int titles = at;
+        at = skipBlobColumn(map, at, movieCount);
+        int ids = at;
+        at = skipBlobColumn(map, at, movieCount);
+        int genreLists = at;
+        at += 4 * (movieCount + 1) + 4 * map.getInt(at + 4 * movieCount);
+        int[] firstWithSameTitle = new int[movieCount];
+        map.slice(at, 4 * movieCount).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(firstWithSameTitle);
+        at += 4 * movieCount;
+
+        ByteBuffer postingsIn = map.slice(at, map.capacity() - at).order(ByteOrder.LITTLE_ENDIAN);
+        CompressedBitmap[] postings = new CompressedBitmap[postingCount];
+        for (int code = 0; code < postingCount; code++) {
+            postings[code] = CompressedBitmap.readFrom(postingsIn);
+        }
+        at = align(at + postingsIn.position(), 8);
+        long[] masks = new long[movieCount * maskWords];
+        map.slice(at, masks.length * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(masks);
+        at += masks.length * 8;
+
+        MovieColumns movies = new MovieColumns(map, movieCount, titles, ids, genreLists, names);
+        MovieCatalog catalog = MovieCatalog.restored(movies, genres, GenreIndex.of(genres, postings, movieCount),
+                masks, firstWithSameTitle, (flags & DUPLICATE_TITLES) != 0);
+
+        //--- User columns: left in the mapping ---//
+        int userNames = at;
+        at = skipBlobColumn(map, at, userCount);
+        int userIds = at;
+        at = skipBlobColumn(map, at, userCount);
+        int watched = at;
+        at += 4 * (userCount + 1) + 4 * map.getInt(at + 4 * userCount);
+        int unknownWatched = at;
+        return new CatalogSnapshot(map, sourceChecksum, catalog, userCount, userNames, userIds, watched,
+                unknownWatched);
+    }
+
+    private static String stringAt(ByteBuffer map, int column, int count, int index) {
+        int from = map.getInt(column + 4 * index);
+        byte[] bytes = new byte[map.getInt(column + 4 * (index + 1)) - from];
+        map.get(column + 4 * (count + 1) + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int skipBlobColumn(ByteBuffer map, int column, int count) {
+        return align(column + 4 * (count + 1) + map.getInt(column + 4 * count), 4);
+    }
+
+    private static int align(int position, int to) {
+        return (position + to - 1) & -to;
+    }
+
+    /**
+     * The movies of a loaded snapshot, read from the mapping on access: a
+     * title or ID is decoded only when asked for, and {@link #get(int)}
+     * builds a fresh Movie each time. Safe for concurrent readers.
+     */
+    static final class MovieColumns extends AbstractList<Movie> implements RandomAccess {
+        private final ByteBuffer map;
+        private final int count;
+        private final int titles;
+        private final int ids;
+        private final int genreLists;
+        private final String[] genreNames;
+
+        private MovieColumns(ByteBuffer map, int count, int titles, int ids, int genreLists, String[] genreNames) {
+            this.map = map;
+            this.count = count;
+            this.titles = titles;
+            this.ids = ids;
+            this.genreLists = genreLists;
+            this.genreNames = genreNames;
+        }
+
+        String title(int ordinal) {
+            return stringAt(map, titles, count, Objects.checkIndex(ordinal, count));
+        }
+
+        String id(int ordinal) {
+            return stringAt(map, ids, count, Objects.checkIndex(ordinal, count));
+        }
+
+        @Override
+        public Movie get(int ordinal) {
+            int from = map.getInt(genreLists + 4 * Objects.checkIndex(ordinal, count));
+            int codes = genreLists + 4 * (count + 1);
+            String[] genres = new String[map.getInt(genreLists + 4 * (ordinal + 1)) - from];
+            for (int g = 0; g < genres.length; g++) {
+                genres[g] = genreNames[map.getInt(codes + 4 * (from + g))];
+            }
+            return new Movie(title(ordinal), id(ordinal), genres);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    //------- Writing -------//
+
+    /**
+     * Collects users for a snapshot of a catalog, compacting each into the
+     * user columns as it is added, so the user objects need not be kept.
+     */
+    public static Builder builder(MovieCatalog catalog) {
+        return new Builder(catalog);
+    }
+
+    public static final class Builder {
+        private final MovieCatalog catalog;
+        private final BlobColumn names = new BlobColumn();
+        private final BlobColumn ids = new BlobColumn();
+        private final IntList watchedOffsets = new IntList();
+        private final IntList watchedOrdinals = new IntList();
+        private final IntList unknownWatched = new IntList();
+        private final IntList ordinals = new IntList();
+
+        private Builder(MovieCatalog catalog) {
+            this.catalog = catalog;
+            watchedOffsets.add(0);
+        }
+
+        /**
+         * Appends a user, resolving its watched IDs against the catalog;
+         * users are stored in the order added.
+         *
+         * @return this builder
+         */
+        public Builder add(User user) {
+            ordinals.clear();
+            int unknown = 0;
+            if (user.watchedMovies() != null) {
+                for (String movieId : user.watchedMovies()) {
+                    int ordinal = catalog.ordinalOf(movieId);
+                    if (ordinal < 0) {
+                        unknown++;
+                    }
+                    for (; ordinal >= 0; ordinal = catalog.nextWithSameId(ordinal)) {
+                        ordinals.add(ordinal);
+                    }
+                }
+            }
+            int[] sorted = ordinals.toArray();
+            Arrays.sort(sorted);
+            return add(user.name(), user.id(), sorted, unknown);
+        }
+
+        /**
+         * Appends a user whose watched movies are already ordinals.
+         *
+         * @return this builder
+         */
+        public Builder add(ResolvedUser user) {
+            return add(user.name(), user.id(), user.watched(), user.unknownWatched());
+        }
+
+        private Builder add(String name, String id, int[] sortedOrdinals, int unknown) {
+            names.add(name);
+            ids.add(id);
+            for (int ordinal : sortedOrdinals) {
+                watchedOrdinals.add(ordinal);
+            }
+            watchedOffsets.add(watchedOrdinals.size());
+            unknownWatched.add(unknown);
+            return this;
+        }
+
+        /**
+         * Writes the snapshot, through a temporary file moved into place.
+         *
+         * @param path           the snapshot file
+         * @param sourceChecksum {@link #sourceChecksum(Path, Path)} of the text files the data came from
+         * @throws IOException if writing fails or the snapshot would exceed 2 GiB
+         */
+        public void write(Path path, long sourceChecksum) throws IOException {
+            int movieCount = catalog.size();
+            GenreDictionary genres = catalog.genres();
+            BlobColumn genreNames = new BlobColumn();
+            for (int code = 0; code < genres.size(); code++) {
+                genreNames.add(genres.name(code));
+            }
+            BlobColumn titles = new BlobColumn();
+            BlobColumn movieIds = new BlobColumn();
+            IntList genreOffsets = new IntList();
+            IntList genreCodes = new IntList();
+            IntList firstWithSameTitle = new IntList(movieCount);
+            genreOffsets.add(0);
+            for (int ordinal = 0; ordinal < movieCount; ordinal++) {
+                titles.add(catalog.title(ordinal));
+                movieIds.add(catalog.id(ordinal));
+                String[] movieGenres = catalog.movie(ordinal).genres();
+                if (movieGenres != null) {
+                    for (String genre : movieGenres) {
+                        genreCodes.add(genres.codeOf(genre));
+                    }
+                }
+                genreOffsets.add(genreCodes.size());
+                firstWithSameTitle.add(catalog.firstWithSameTitle(ordinal));
+            }
+            GenreIndex genreIndex = catalog.genreIndex();
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Payload payload = new Payload(channel);
+                payload.blobColumn(genreNames);
+                payload.blobColumn(titles);
+                payload.blobColumn(movieIds);
+                payload.ints(genreOffsets);
+                payload.ints(genreCodes);
+                payload.ints(firstWithSameTitle);
+                for (int code = 0; code < genreIndex.genreCount(); code++) {
+                    payload.bitmap(genreIndex.postings(code));
+                }
+                payload.pad(8);
+                payload.longs(catalog.genreMaskColumn());
+                payload.blobColumn(names);
+                payload.blobColumn(ids);
+                payload.ints(watchedOffsets);
+                payload.ints(watchedOrdinals);
+                payload.ints(unknownWatched);
+                payload.flush();
+                if (HEADER_BYTES + payload.written > Integer.MAX_VALUE) {
+                    throw new IOException("ERROR: Catalog snapshot would exceed 2 GiB");
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(sourceChecksum).putLong(payload.crc.getValue())
+                        .putInt(movieCount).putInt(genres.size()).putInt(catalog.maskWords())
+                        .putInt(names.size()).putInt(genreIndex.genreCount())
+                        .putInt(catalog.hasDuplicateTitles() ? DUPLICATE_TITLES : 0)
+                        .putLong(payload.written).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // Offsets plus UTF-8 blob, built as strings are added
+    private static final class BlobColumn {
+        private final IntList offsets = new IntList();
+        private final ByteArrayOutputStream blob = new ByteArrayOutputStream();
+
+        BlobColumn() {
+            offsets.add(0);
+        }
+
+        void add(String value) {
+            blob.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            offsets.add(blob.size());
+        }
+
+        int size() {
+            return offsets.size() - 1;
+        }
+    }
+
+    // Sequential payload writer after the header, keeping its CRC32C and length
+    private static final class Payload {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private long written;
+
+        Payload(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(HEADER_BYTES);
+        }
+
+        void blobColumn(BlobColumn column) throws IOException {
+            ints(column.offsets);
+            bytes(column.blob.toByteArray());
+            pad(4);
+        }
+
+        void ints(IntList values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                room(4);
+                buffer.putInt(values.get(i));
+            }
+        }
+
+        void longs(long[] values) throws IOException {
+            for (long value : values) {
+                room(8);
+                buffer.putLong(value);
+            }
+        }
+
+        void bitmap(CompressedBitmap bitmap) throws IOException {
+            ByteBuffer serialized = ByteBuffer.allocate(bitmap.serializedSize()).order(ByteOrder.LITTLE_ENDIAN);
+            bitmap.writeTo(serialized);
+            bytes(serialized.array());
+        }
+
+        void bytes(byte[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                room(1);
+                int count = Math.min(values.length - i, buffer.remaining());
+                buffer.put(values, i, count);
+                i += count;
+            }
+        }
+
+        void pad(int to) throws IOException {
+            long position = written + buffer.position();
+            for (long p = position; p % to != 0; p++) {
+                room(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            written += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
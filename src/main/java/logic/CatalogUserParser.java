@@ -0,0 +1,173 @@
+package logic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads the users file against a movie catalog, resolving every watched ID
+ * to catalog ordinals while parsing. IDs are looked up by their bytes in
+ * the catalog's ID dictionary, so no String is made per watched ID; only
+ * names and user IDs are decoded.
+ *
+ * Records follow {@link UserFileParser#streamUsers(String)}, with the same
+ * error messages. An ID the catalog does not know is counted and, when
+ * {@link #reportUnknown(boolean)} is on, listed with its line.
+ * {@link #streamUsers(String, int, LongConsumer)} parses in parallel through
+ * the same engine as {@link UserFileParser#streamUsers(String, int)}.
+ */
+public final class CatalogUserParser {
+
+    private final MovieCatalog catalog;
+    private final int chunkBytes;
+    private boolean reportUnknown;
+
+    public CatalogUserParser(MovieCatalog catalog) {
+        this(catalog, UserFileParser.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param chunkBytes size of the byte ranges parsed in parallel by {@link #streamUsers}
+     */
+    public CatalogUserParser(MovieCatalog catalog, int chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("ERROR: Chunk size must be at least 1 byte");
+        }
+        this.catalog = catalog;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Lists every unknown watched ID in the result, as "ID (line N)".
+     *
+     * @param reportUnknown true to list them; they are always counted
+     * @return this parser
+     */
+    public CatalogUserParser reportUnknown(boolean reportUnknown) {
+        this.reportUnknown = reportUnknown;
+        return this;
+    }
+
+    /**
+     * Parses the users file.
+     *
+     * @param filePath the users file
+     * @return the users with resolved watched movies, and the unknown IDs
+     * @throws Exception if reading fails, or with the message and line of the first malformed record
+     */
+    public Result readUsers(String filePath) throws Exception {
+        MovieIdIndex ids = catalog.idIndex();
+        List<ResolvedUser> users = new ArrayList<>();
+        List<String> unknownReport = new ArrayList<>();
+        long unknownIds = 0;
+        IntList ordinals = new IntList(16);
+
+        try (MappedLines lines = new MappedLines(Path.of(filePath), 0, MappedLines.DEFAULT_WINDOW_BYTES)) {
+            long line = 0;
+            while (lines.next()) {
+                line++;
+                if (lines.isBlank()) continue;
+
+                ResolvedUser user = readRecord(ids, lines, line, ordinals, reportUnknown ? unknownReport : null);
+                line++;
+                users.add(user);
+                unknownIds += user.unknownWatched();
+            }
+        }
+        return new Result(users, unknownIds, unknownReport);
+    }
+
+    /**
+     * Parses the users file in parallel a group of byte ranges at a time,
+     * like {@link UserFileParser#streamUsers(String, int, LongConsumer)},
+     * resolving watched IDs as each range is parsed. Unknown IDs are only
+     * counted, per user; {@link #reportUnknown(boolean)} does not apply.
+     *
+     * @param filePath     the users file
+     * @param parallelism  worker threads, and ranges per group
+     * @param fileChecksum receives the CRC32C of the whole file once the
+     *                     stream has been read to its end; may be null
+     * @return the users, in file order
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<ResolvedUser> streamUsers(String filePath, int parallelism, LongConsumer fileChecksum)
+            throws IOException {
+        MovieIdIndex ids = catalog.idIndex();
+        return UserFileParser.streamRecords(Path.of(filePath), chunkBytes, parallelism,
+                (lines, line) -> readRecord(ids, lines, line, new IntList(16), null), fileChecksum);
+    }
+
+    /**
+     * Counts the users that watched each catalog movie, parsing the file as
+     * {@link #streamUsers} does, e.g. to build a {@link PopularityIndex}
+     * before the users are streamed again for recommendations.
+     *
+     * @param filePath    the users file
+     * @param parallelism worker threads, and ranges per group
+     * @return watchers per ordinal
+     * @throws IOException if the file cannot be opened
+     */
+    public int[] countWatchers(String filePath, int parallelism) throws IOException {
+        int[] watchCounts = new int[catalog.size()];
+        try (Stream<ResolvedUser> users = streamUsers(filePath, parallelism, null)) {
+            users.forEach(user -> {
+                for (int ordinal : user.watched()) {
+                    watchCounts[ordinal]++;
+                }
+            });
+        }
+        return watchCounts;
+    }
+
+    // Parses the record whose header is the current line, leaving the reader on its watched line
+    private ResolvedUser readRecord(MovieIdIndex ids, MappedLines lines, long line, IntList ordinals,
+                                    List<String> unknownReport) throws IOException {
+        String[] nameAndId = UserFileParser.readHeader(lines, line);
+
+        ordinals.clear();
+        int unknown = 0;
+        for (FieldTokenizer fields = lines.fields(); fields.next(); ) {
+            if (fields.start == fields.end) continue;
+
+            int ordinal = ids.lookup(lines.buf, fields.start, fields.end);
+            if (ordinal < 0) {
+                unknown++;
+                if (unknownReport != null) {
+                    unknownReport.add(lines.decode(fields.start, fields.end) + " (line " + (line + 1) + ")");
+                }
+                continue;
+            }
+            for (; ordinal >= 0; ordinal = catalog.nextWithSameId(ordinal)) {
+                ordinals.add(ordinal);
+            }
+        }
+        return new ResolvedUser(nameAndId[0], nameAndId[1], sortedDistinct(ordinals), unknown);
+    }
+
+    // Ascending, without the repeats of an ID listed twice
+    private static int[] sortedDistinct(IntList ordinals) {
+        int[] sorted = ordinals.toArray();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Outcome of one parse.
+     *
+     * @param users         the users, in file order
+     * @param unknownIds    watched IDs, counted per occurrence, that are not in the catalog
+     * @param unknownReport each unknown ID with its line, if reporting was on; else empty
+     */
+    public record Result(List<ResolvedUser> users, long unknownIds, List<String> unknownReport) {
+    }
+}
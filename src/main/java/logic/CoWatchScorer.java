@@ -0,0 +1,20 @@
+package logic;
+
+/**
+ * Scores the neighbours of every watched movie in an
+ * {@link ItemItemRecommender} by the sum of their co-watch similarities.
+ */
+public final class CoWatchScorer implements Scorer {
+
+    private final ItemItemRecommender itemItem;
+
+    public CoWatchScorer(ItemItemRecommender itemItem) {
+        this.itemItem = itemItem;
+    }
+
+    @Override
+    public void score(ScoringContext context) {
+        CompressedBitmap watched = context.watched();
+        watched.forEach(ordinal -> itemItem.addNeighbors(ordinal, watched, context));
+    }
+}
@@ -0,0 +1,882 @@
+package logic;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed set of non-negative ints (movie or user ordinals),
+ * laid out like a Roaring bitmap: values are grouped by their high 16 bits
+ * and each group of at most 65536 low values is stored in whichever
+ * container is smallest:
+ * <ul>
+ *   <li>array  - sorted char[] of the values (sparse groups),</li>
+ *   <li>bitmap - 1024 longs, one bit per value (dense groups),</li>
+ *   <li>run    - (start, length - 1) char pairs (consecutive ordinals).</li>
+ * </ul>
+ * AND, OR and ANDNOT work container by container and only touch groups
+ * present in the operands.
+ */
+public final class CompressedBitmap {
+
+    public static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0]);
+
+    // containers holding more values than this are never arrays
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private final char[] keys;
+    private final Container[] containers;
+
+    private CompressedBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+    }
+
+    //------- Construction -------//
+
+    /**
+     * @param values the values, in any order, duplicates allowed
+     * @return a bitmap holding exactly those values
+     */
+    public static CompressedBitmap of(int... values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return ofSorted(sorted, sorted.length);
+    }
+
+    /**
+     * Builds a bitmap from the first {@code length} values of an ascending
+     * array (duplicates allowed) without copying it first.
+     */
+    public static CompressedBitmap ofSorted(int[] sorted, int length) {
+        Builder builder = new Builder();
+        for (int i = 0; i < length; i++) {
+            builder.add(sorted[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Incremental builder; values must be added in non-decreasing order.
+     *
+     * A group is collected as sorted chars while it could still be an array
+     * container, so small sets cost only their values; the 8 KB bitmap
+     * scratch is allocated the first time a group outgrows that.
+     */
+    public static final class Builder {
+        private char[] keys = new char[4];
+        private Container[] containers = new Container[4];
+        private int size;
+
+        // the current group: sorted lows up to ARRAY_MAX values, then bits in words
+        private char[] lows = new char[16];
+        private long[] words;
+        private int currentKey = -1;
+        private int cardinality;
+        private int last = -1;
+
+        public Builder add(int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("ERROR: Bitmap values must not be negative: " + value);
+            }
+            if (value < last) {
+                throw new IllegalArgumentException("ERROR: Bitmap values must be added in order: " + value);
+            }
+            if (value == last) {
+                return this;
+            }
+            last = value;
+
+            int key = value >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            int low = value & 0xFFFF;
+            if (cardinality < ARRAY_MAX) {
+                if (cardinality == lows.length) {
+                    lows = Arrays.copyOf(lows, cardinality << 1);
+                }
+                lows[cardinality] = (char) low;
+            } else {
+                if (cardinality == ARRAY_MAX) {
+                    spill();
+                }
+                words[low >>> 6] |= 1L << low;
+            }
+            cardinality++;
+            return this;
+        }
+
+        public CompressedBitmap build() {
+            flush();
+            CompressedBitmap bitmap = new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size));
+            size = 0;
+            last = -1;
+            return bitmap;
+        }
+
+        // Moves a group that no longer fits an array container into the bitmap scratch
+        private void spill() {
+            if (words == null) {
+                words = new long[BITMAP_WORDS];
+            }
+            for (int i = 0; i < cardinality; i++) {
+                words[lows[i] >>> 6] |= 1L << lows[i];
+            }
+        }
+
+        private void flush() {
+            if (cardinality == 0) return;
+            if (cardinality <= ARRAY_MAX) {
+                append((char) currentKey, Container.fromSorted(lows, cardinality));
+            } else {
+                append((char) currentKey, Container.fromWords(words, cardinality));
+                Arrays.fill(words, 0);
+            }
+            cardinality = 0;
+        }
+
+        private void append(char key, Container container) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+                containers = Arrays.copyOf(containers, size << 1);
+            }
+            keys[size] = key;
+            containers[size++] = container;
+        }
+    }
+
+    //------- Queries -------//
+
+    public int cardinality() {
+        int total = 0;
+        for (Container container : containers) {
+            total += container.cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return containers.length == 0;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int index = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Calls the action for every value in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containers.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * @return the smallest value that is at least {@code from}, or -1 if none
+     */
+    public int nextValue(int from) {
+        int start = Math.max(0, from);
+        int index = Arrays.binarySearch(keys, (char) (start >>> 16));
+        if (index >= 0) {
+            int low = containers[index].nextValue(start & 0xFFFF);
+            if (low >= 0) {
+                return (keys[index] << 16) | low;
+            }
+            index++;
+        } else {
+            index = -index - 1;
+        }
+        return index < containers.length ? (keys[index] << 16) | containers[index].nextValue(0) : -1;
+    }
+
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int pos = 0;
+        for (int i = 0; i < containers.length; i++) {
+            pos = containers[i].toArray(keys[i] << 16, out, pos);
+        }
+        return out;
+    }
+
+    /**
+     * @return approximate heap footprint of the containers in bytes
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L;
+        for (Container container : containers) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    //------- Serialization -------//
+
+    /**
+     * @return bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    int serializedSize() {
+        int bytes = 4;
+        for (Container container : containers) {
+            bytes += 2 + container.serializedSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the group count, then per group its key, container kind and
+     * length and the container's own arrays, in the buffer's byte order.
+     */
+    void writeTo(ByteBuffer out) {
+        out.putInt(containers.length);
+        for (int i = 0; i < containers.length; i++) {
+            out.putChar(keys[i]);
+            containers[i].writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a bitmap written by {@link #writeTo(ByteBuffer)}, copying the
+     * container arrays in bulk; the buffer is left after it.
+     */
+    static CompressedBitmap readFrom(ByteBuffer in) {
+        int groups = in.getInt();
+        if (groups == 0) return EMPTY;
+        char[] keys = new char[groups];
+        Container[] containers = new Container[groups];
+        for (int i = 0; i < groups; i++) {
+            keys[i] = in.getChar();
+            containers[i] = Container.readFrom(in);
+        }
+        return new CompressedBitmap(keys, containers);
+    }
+
+    //------- Set operations -------//
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        Merger out = new Merger(Math.min(keys.length, other.keys.length));
+        int i = 0, j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                out.add(keys[i], Container.and(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out.build();
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        Merger out = new Merger(keys.length + other.keys.length);
+        int i = 0, j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                out.add(keys[i], containers[i]);
+                i++;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                out.add(other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                out.add(keys[i], Container.or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out.build();
+    }
+
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        Merger out = new Merger(keys.length);
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                out.add(keys[i], Container.andNot(containers[i], other.containers[j]));
+            } else {
+                out.add(keys[i], containers[i]);
+            }
+        }
+        return out.build();
+    }
+
+    /**
+     * ORs many bitmaps at once, accumulating each group in one scratch
+     * bitmap instead of building every intermediate result.
+     */
+    public static CompressedBitmap orAll(List<CompressedBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) return EMPTY;
+        if (bitmaps.size() == 1) return bitmaps.get(0);
+
+        int[] cursor = new int[bitmaps.size()];
+        long[] words = new long[BITMAP_WORDS];
+        Merger out = new Merger(8);
+        while (true) {
+            int key = Integer.MAX_VALUE;
+            for (int b = 0; b < bitmaps.size(); b++) {
+                CompressedBitmap bitmap = bitmaps.get(b);
+                if (cursor[b] < bitmap.keys.length) {
+                    key = Math.min(key, bitmap.keys[cursor[b]]);
+                }
+            }
+            if (key == Integer.MAX_VALUE) break;
+
+            Container single = null;
+            int contributors = 0;
+            for (int b = 0; b < bitmaps.size(); b++) {
+                CompressedBitmap bitmap = bitmaps.get(b);
+                if (cursor[b] < bitmap.keys.length && bitmap.keys[cursor[b]] == key) {
+                    Container container = bitmap.containers[cursor[b]++];
+                    if (contributors++ == 0) {
+                        single = container;
+                    } else {
+                        if (contributors == 2) {
+                            Arrays.fill(words, 0);
+                            single.orInto(words);
+                        }
+                        container.orInto(words);
+                    }
+                }
+            }
+            out.add((char) key, contributors == 1 ? single : Container.fromWords(words, cardinality(words)));
+        }
+        return out.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressedBitmap other && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static int cardinality(long[] words) {
+        int card = 0;
+        for (long word : words) {
+            card += Long.bitCount(word);
+        }
+        return card;
+    }
+
+    // Collects result containers, dropping empty ones
+    private static final class Merger {
+        private char[] keys;
+        private Container[] containers;
+        private int size;
+
+        Merger(int capacity) {
+            keys = new char[Math.max(1, capacity)];
+            containers = new Container[Math.max(1, capacity)];
+        }
+
+        void add(char key, Container container) {
+            if (container == null || container.cardinality() == 0) return;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+                containers = Arrays.copyOf(containers, size << 1);
+            }
+            keys[size] = key;
+            containers[size++] = container;
+        }
+
+        CompressedBitmap build() {
+            return size == 0 ? EMPTY : new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size));
+        }
+    }
+
+    //------- Containers -------//
+
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        abstract void orInto(long[] words);
+
+        abstract void forEach(int high, IntConsumer action);
+
+        // smallest low value >= low, or -1
+        abstract int nextValue(int low);
+
+        abstract int toArray(int high, int[] out, int pos);
+
+        abstract long sizeInBytes();
+
+        // bytes written by writeTo
+        abstract int serializedSize();
+
+        // kind (char), length (int), then the container's array
+        abstract void writeTo(ByteBuffer out);
+
+        static Container readFrom(ByteBuffer in) {
+            char kind = in.getChar();
+            int length = in.getInt();
+            if (kind == BitmapContainer.KIND) {
+                long[] words = new long[BITMAP_WORDS];
+                in.asLongBuffer().get(words);
+                in.position(in.position() + 8 * BITMAP_WORDS);
+                return new BitmapContainer(words, length);
+            }
+            char[] values = new char[length];
+            in.asCharBuffer().get(values);
+            in.position(in.position() + 2 * length);
+            return kind == ArrayContainer.KIND ? new ArrayContainer(values) : RunContainer.of(values);
+        }
+
+        long[] toWords() {
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return words;
+        }
+
+        // Same choice as fromWords for a group of at most ARRAY_MAX ascending, distinct values
+        static Container fromSorted(char[] values, int cardinality) {
+            int runs = 1;
+            for (int i = 1; i < cardinality; i++) {
+                if (values[i] != values[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            if (4L * runs < 2L * cardinality) {
+                return RunContainer.fromSorted(values, cardinality, runs);
+            }
+            return new ArrayContainer(Arrays.copyOf(values, cardinality));
+        }
+
+        // Picks the smallest of the three representations for a group
+        static Container fromWords(long[] words, int cardinality) {
+            int runs = 0;
+            long carry = 0;
+            for (long word : words) {
+                runs += Long.bitCount(word & ~((word << 1) | carry));
+                carry = word >>> 63;
+            }
+
+            long arrayBytes = 2L * cardinality;
+            long runBytes = 4L * runs;
+            if (runBytes < Math.min(arrayBytes, 8L * BITMAP_WORDS)) {
+                return RunContainer.fromWords(words, runs);
+            }
+            if (cardinality <= ARRAY_MAX) {
+                return ArrayContainer.fromWords(words, cardinality);
+            }
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        static Container and(Container a, Container b) {
+            if (a instanceof ArrayContainer array) {
+                return array.filter(b, true);
+            }
+            if (b instanceof ArrayContainer array) {
+                return array.filter(a, true);
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= other[w];
+                card += Long.bitCount(words[w]);
+            }
+            return card == 0 ? null : fromWords(words, card);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a instanceof ArrayContainer x && b instanceof ArrayContainer y
+                    && x.cardinality() + y.cardinality() <= ARRAY_MAX) {
+                return x.union(y);
+            }
+            long[] words = a.toWords();
+            b.orInto(words);
+            return fromWords(words, CompressedBitmap.cardinality(words));
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a instanceof ArrayContainer array) {
+                return array.filter(b, false);
+            }
+            long[] words = a.toWords();
+            long[] other = b.toWords();
+            int card = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= ~other[w];
+                card += Long.bitCount(words[w]);
+            }
+            return card == 0 ? null : fromWords(words, card);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        static final char KIND = 'A';
+
+        private final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        static ArrayContainer fromWords(long[] words, int cardinality) {
+            char[] values = new char[cardinality];
+            int pos = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    values[pos++] = (char) ((w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return new ArrayContainer(values);
+        }
+
+        // Keeps the values that are (keep = true) or are not (keep = false) in the other container
+        Container filter(Container other, boolean keep) {
+            char[] out = new char[values.length];
+            int size = 0;
+            for (char value : values) {
+                if (other.contains(value) == keep) {
+                    out[size++] = value;
+                }
+            }
+            return size == 0 ? null : new ArrayContainer(size == out.length ? out : Arrays.copyOf(out, size));
+        }
+
+        ArrayContainer union(ArrayContainer other) {
+            char[] out = new char[values.length + other.values.length];
+            int i = 0, j = 0, size = 0;
+            while (i < values.length && j < other.values.length) {
+                char a = values[i], b = other.values[j];
+                if (a < b) {
+                    out[size++] = a;
+                    i++;
+                } else if (a > b) {
+                    out[size++] = b;
+                    j++;
+                } else {
+                    out[size++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < values.length) out[size++] = values[i++];
+            while (j < other.values.length) out[size++] = other.values[j++];
+            return new ArrayContainer(Arrays.copyOf(out, size));
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (char value : values) {
+                action.accept(high | value);
+            }
+        }
+
+        @Override
+        int nextValue(int low) {
+            int index = Arrays.binarySearch(values, (char) low);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < values.length ? values[index] : -1;
+        }
+
+        @Override
+        int toArray(int high, int[] out, int pos) {
+            for (char value : values) {
+                out[pos++] = high | value;
+            }
+            return pos;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * values.length;
+        }
+
+        @Override
+        int serializedSize() {
+            return 6 + 2 * values.length;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            out.putChar(KIND).putInt(values.length);
+            out.asCharBuffer().put(values);
+            out.position(out.position() + 2 * values.length);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        static final char KIND = 'B';
+
+        private final long[] words;
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        void orInto(long[] target) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                target[w] |= words[w];
+            }
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    action.accept(high | (w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+
+        @Override
+        int nextValue(int low) {
+            int w = low >>> 6;
+            long bits = words[w] & (-1L << low);
+            while (bits == 0) {
+                if (++w == BITMAP_WORDS) return -1;
+                bits = words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        @Override
+        int toArray(int high, int[] out, int pos) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    out[pos++] = high | (w << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * BITMAP_WORDS;
+        }
+
+        @Override
+        int serializedSize() {
+            return 6 + 8 * BITMAP_WORDS;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            out.putChar(KIND).putInt(cardinality);
+            out.asLongBuffer().put(words);
+            out.position(out.position() + 8 * BITMAP_WORDS);
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        static final char KIND = 'R';
+
+        // pairs of (start, length - 1), sorted by start
+        private final char[] runs;
+        private final int cardinality;
+
+        RunContainer(char[] runs, int cardinality) {
+            this.runs = runs;
+            this.cardinality = cardinality;
+        }
+
+        static RunContainer of(char[] runs) {
+            int cardinality = 0;
+            for (int r = 1; r < runs.length; r += 2) {
+                cardinality += runs[r] + 1;
+            }
+            return new RunContainer(runs, cardinality);
+        }
+
+        static RunContainer fromWords(long[] words, int runCount) {
+            char[] runs = new char[runCount * 2];
+            int pos = 0;
+            int cardinality = 0;
+            int value = 0;
+            while (value < 65536) {
+                // find the next set bit
+                int w = value >>> 6;
+                long bits = words[w] & (-1L << value);
+                while (bits == 0 && ++w < BITMAP_WORDS) {
+                    bits = words[w];
+                }
+                if (w == BITMAP_WORDS) break;
+                int start = (w << 6) + Long.numberOfTrailingZeros(bits);
+
+                // find the next clear bit after it
+                bits = ~words[w] & (-1L << start);
+                while (bits == 0 && ++w < BITMAP_WORDS) {
+                    bits = ~words[w];
+                }
+                int end = w == BITMAP_WORDS ? 65536 : (w << 6) + Long.numberOfTrailingZeros(bits);
+
+                runs[pos++] = (char) start;
+                runs[pos++] = (char) (end - start - 1);
+                cardinality += end - start;
+                value = end;
+            }
+            return new RunContainer(runs, cardinality);
+        }
+
+        static RunContainer fromSorted(char[] values, int cardinality, int runCount) {
+            char[] runs = new char[runCount * 2];
+            int pos = 0;
+            int start = 0;
+            for (int i = 1; i <= cardinality; i++) {
+                if (i == cardinality || values[i] != values[i - 1] + 1) {
+                    runs[pos++] = values[start];
+                    runs[pos++] = (char) (i - start - 1);
+                    start = i;
+                }
+            }
+            return new RunContainer(runs, cardinality);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            int lo = 0, hi = runs.length / 2 - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int start = runs[mid * 2];
+                if (low < start) {
+                    hi = mid - 1;
+                } else if (low > start + runs[mid * 2 + 1]) {
+                    lo = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int r = 0; r < runs.length; r += 2) {
+                int start = runs[r];
+                int end = start + runs[r + 1]; // inclusive
+                int firstWord = start >>> 6, lastWord = end >>> 6;
+                if (firstWord == lastWord) {
+                    words[firstWord] |= (-1L << start) & (-1L >>> (63 - (end & 63)));
+                } else {
+                    words[firstWord] |= -1L << start;
+                    for (int w = firstWord + 1; w < lastWord; w++) {
+                        words[w] = -1L;
+                    }
+                    words[lastWord] |= -1L >>> (63 - (end & 63));
+                }
+            }
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int r = 0; r < runs.length; r += 2) {
+                int start = runs[r];
+                int end = start + runs[r + 1];
+                for (int value = start; value <= end; value++) {
+                    action.accept(high | value);
+                }
+            }
+        }
+
+        @Override
+        int nextValue(int low) {
+            // first run ending at or after low
+            int lo = 0, hi = runs.length / 2;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[mid * 2] + runs[mid * 2 + 1] < low) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == runs.length / 2) return -1;
+            return Math.max(low, runs[lo * 2]);
+        }
+
+        @Override
+        int toArray(int high, int[] out, int pos) {
+            for (int r = 0; r < runs.length; r += 2) {
+                int start = runs[r];
+                int end = start + runs[r + 1];
+                for (int value = start; value <= end; value++) {
+                    out[pos++] = high | value;
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * runs.length;
+        }
+
+        @Override
+        int serializedSize() {
+            return 6 + 2 * runs.length;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            out.putChar(KIND).putInt(runs.length);
+            out.asCharBuffer().put(runs);
+            out.position(out.position() + 2 * runs.length);
+        }
+    }
+}
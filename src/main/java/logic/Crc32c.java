@@ -0,0 +1,73 @@
+package logic;
+
+/**
+ * Combines CRC32C values of adjacent byte ranges, so ranges checksummed in
+ * parallel give the checksum of the whole, as {@link java.util.zip.CRC32C}
+ * would compute it in one pass. Same GF(2) matrix method as zlib's
+ * crc32_combine, with the CRC32C polynomial.
+ */
+final class Crc32c {
+
+    // reflected Castagnoli polynomial
+    private static final long POLYNOMIAL = 0x82F63B78L;
+
+    private Crc32c() {
+    }
+
+    /**
+     * @param crc1    checksum of the first range
+     * @param crc2    checksum of the range right after it
+     * @param length2 length of the second range in bytes
+     * @return the checksum of both ranges together
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // operator for one zero bit, then two, then four
+        odd[0] = POLYNOMIAL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+
+        // apply length2 zero bytes to crc1, one bit of length2 at a time
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length2 >>>= 1;
+            if (length2 == 0) break;
+
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length2 >>>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
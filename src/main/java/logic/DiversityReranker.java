@@ -0,0 +1,136 @@
+package logic;
+
+/**
+ * Maximal-marginal-relevance re-ranker: picks K results from a scored
+ * candidate pool, each step taking the candidate with the best
+ *
+ *     lambda * relevance - (1 - lambda) * max similarity to the picked ones
+ *
+ * where relevance is the score scaled to [0, 1] and similarity is the
+ * Jaccard index of the two genre masks. Every candidate's max similarity is
+ * kept in a float[] and raised against the newest pick only, so selection
+ * is O(K x pool) instead of recomparing with every earlier pick.
+ *
+ * Safe to share between threads; buffers are per thread.
+ */
+public final class DiversityReranker {
+
+    public static final int DEFAULT_POOL_FACTOR = 4;
+
+    private final MovieCatalog catalog;
+    private final float lambda;
+    private final int poolFactor;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public DiversityReranker(MovieCatalog catalog, float lambda) {
+        this(catalog, lambda, DEFAULT_POOL_FACTOR);
+    }
+
+    /**
+     * @param catalog    the catalog the ordinals belong to
+     * @param lambda     weight of relevance against diversity, in [0, 1]; 1 keeps the score order
+     * @param poolFactor candidates scored per requested result
+     */
+    public DiversityReranker(MovieCatalog catalog, float lambda, int poolFactor) {
+        if (!(lambda >= 0 && lambda <= 1) || poolFactor < 1) {
+            throw new IllegalArgumentException("ERROR: Diversity needs lambda in [0, 1] and a pool factor of at least 1");
+        }
+        this.catalog = catalog;
+        this.lambda = lambda;
+        this.poolFactor = poolFactor;
+    }
+
+    /**
+     * @return how many scored candidates to collect for k results
+     */
+    public int poolSize(int k) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) k * poolFactor);
+    }
+
+    /**
+     * Selects k of the candidates.
+     *
+     * @param ordinals candidate ordinals, best score first
+     * @param scores   their scores, same order
+     * @param count    number of candidates in the arrays
+     * @param k        results wanted
+     * @return the picked ordinals in pick order
+     */
+    public int[] rerank(int[] ordinals, float[] scores, int count, int k) {
+        int picks = Math.max(0, Math.min(k, count));
+        int[] result = new int[picks];
+        if (picks == 0) {
+            return result;
+        }
+
+        Scratch s = scratch.get();
+        s.ensure(count);
+        float max = Float.NEGATIVE_INFINITY, min = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, scores[i]);
+            min = Math.min(min, scores[i]);
+        }
+        float range = max - min;
+        for (int i = 0; i < count; i++) {
+            s.remaining[i] = i;
+            s.relevance[i] = range > 0 ? (scores[i] - min) / range : 1;
+            s.maxSimilarity[i] = 0;
+        }
+
+        long[] masks = catalog.genreMaskColumn();
+        int words = catalog.maskWords();
+        int left = count;
+        for (int pick = 0; pick < picks; pick++) {
+            // candidates stay in score order, so ties go to the better-scored one
+            int bestSlot = 0;
+            float best = Float.NEGATIVE_INFINITY;
+            for (int slot = 0; slot < left; slot++) {
+                int i = s.remaining[slot];
+                float value = lambda * s.relevance[i] - (1 - lambda) * s.maxSimilarity[i];
+                if (value > best) {
+                    best = value;
+                    bestSlot = slot;
+                }
+            }
+            int chosen = s.remaining[bestSlot];
+            result[pick] = ordinals[chosen];
+            System.arraycopy(s.remaining, bestSlot + 1, s.remaining, bestSlot, left - bestSlot - 1);
+            left--;
+
+            int chosenBase = ordinals[chosen] * words;
+            for (int slot = 0; slot < left; slot++) {
+                int i = s.remaining[slot];
+                float similarity = jaccard(masks, chosenBase, ordinals[i] * words, words);
+                if (similarity > s.maxSimilarity[i]) {
+                    s.maxSimilarity[i] = similarity;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static float jaccard(long[] masks, int a, int b, int words) {
+        int shared = 0, union = 0;
+        for (int w = 0; w < words; w++) {
+            shared += Long.bitCount(masks[a + w] & masks[b + w]);
+            union += Long.bitCount(masks[a + w] | masks[b + w]);
+        }
+        return union == 0 ? 0 : (float) shared / union;
+    }
+
+    // Per-thread buffers, grown to the largest pool seen
+    private static final class Scratch {
+        int[] remaining = new int[0];
+        float[] relevance = new float[0];
+        float[] maxSimilarity = new float[0];
+
+        void ensure(int count) {
+            if (remaining.length < count) {
+                remaining = new int[count];
+                relevance = new float[count];
+                maxSimilarity = new float[count];
+            }
+        }
+    }
+}
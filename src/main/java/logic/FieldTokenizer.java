@@ -0,0 +1,99 @@
+package logic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable comma-field tokenizer over a byte range, shared by the file
+ * parsers. Each {@link #next()} exposes one field as positions in the
+ * buffer, both as written ([rawStart, rawEnd)) and trimmed ([start, end)),
+ * so nothing is allocated; callers decode only the slices a record keeps.
+ *
+ * Fields follow String.split(","): an empty range is one empty field, and
+ * {@link #dropTrailingEmpty()} removes trailing empty fields as split does.
+ * Trimming drops bytes up to ' ', like String.trim() on UTF-8 text.
+ */
+final class FieldTokenizer {
+
+    private ByteBuffer buf;
+    private int pos;
+    private int limit;
+    private boolean more;
+
+    // the current field as written, and trimmed
+    int rawStart;
+    int rawEnd;
+    int start;
+    int end;
+
+    /**
+     * Starts tokenizing buf[from, to).
+     *
+     * @return this tokenizer
+     */
+    FieldTokenizer reset(ByteBuffer buf, int from, int to) {
+        this.buf = buf;
+        this.pos = from;
+        this.limit = to;
+        this.more = true;
+        return this;
+    }
+
+    /**
+     * Drops the trailing empty fields; a range of commas only has no fields.
+     *
+     * @return this tokenizer
+     */
+    FieldTokenizer dropTrailingEmpty() {
+        if (pos < limit) {
+            while (limit > pos && buf.get(limit - 1) == ',') {
+                limit--;
+            }
+            more = limit > pos;
+        }
+        return this;
+    }
+
+    /**
+     * Moves to the next field.
+     *
+     * @return false once every field was returned
+     */
+    boolean next() {
+        if (!more) return false;
+        int i = pos;
+        while (i < limit && buf.get(i) != ',') {
+            i++;
+        }
+        rawStart = pos;
+        rawEnd = i;
+        more = i < limit;
+        pos = i + 1;
+        start = skipBlank(buf, rawStart, rawEnd);
+        end = trimEnd(buf, start, rawEnd);
+        return true;
+    }
+
+    boolean hasNext() {
+        return more;
+    }
+
+    //--- Trimming by index ---//
+    // Bytes up to ' ' are exactly the chars String.trim() drops; UTF-8 never uses them inside a character.
+    static boolean isTrimmed(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    static int skipBlank(ByteBuffer buf, int from, int to) {
+        while (from < to && isTrimmed(buf.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    static int trimEnd(ByteBuffer buf, int from, int to) {
+        while (to > from && isTrimmed(buf.get(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+}
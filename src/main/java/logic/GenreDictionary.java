@@ -0,0 +1,65 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each distinct genre name a dense integer code (0, 1, 2, ...) in
+ * first-seen order. Codes are bit positions in the genre masks kept by
+ * {@link MovieCatalog}, so a mask spans {@link #maskWords()} longs.
+ *
+ * Interning is meant to happen while parsing; once a catalog is built from
+ * the dictionary it is only read.
+ */
+public final class GenreDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Returns the code of a genre, assigning the next free code if it is new.
+     */
+    public int intern(String genre) {
+        Integer code = codes.get(genre);
+        if (code == null) {
+            code = names.size();
+            codes.put(genre, code);
+            names.add(genre);
+        }
+        return code;
+    }
+
+    /**
+     * @return the code of a genre, or -1 if it was never interned
+     */
+    public int codeOf(String genre) {
+        Integer code = codes.get(genre);
+        return code == null ? -1 : code;
+    }
+
+    public String name(int code) {
+        return names.get(code);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return number of longs needed for a mask covering every code (at least 1)
+     */
+    public int maskWords() {
+        return Math.max(1, (names.size() + 63) >>> 6);
+    }
+
+    // Independent copy with the same codes, for a catalog that interns more genres
+    GenreDictionary copy() {
+        GenreDictionary copy = new GenreDictionary();
+        for (String name : names) {
+            copy.intern(name);
+        }
+        return copy;
+    }
+}
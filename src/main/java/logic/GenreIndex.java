@@ -0,0 +1,122 @@
+package logic;
+
+import model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable inverted index from genre code to the ordinals (positions in the
+ * parsed movie list) of every movie tagged with that genre. Each posting
+ * list is a {@link CompressedBitmap}, so liked genres are unioned with OR.
+ */
+public final class GenreIndex {
+
+    private final GenreDictionary dictionary;
+    private final CompressedBitmap[] postings;
+    private final int movieCount;
+
+    private GenreIndex(GenreDictionary dictionary, CompressedBitmap[] postings, int movieCount) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.movieCount = movieCount;
+    }
+
+    /**
+     * Builds the index in a single pass over the catalog.
+     *
+     * @param movies the parsed movie list; ordinals are positions in this list
+     * @return the index (empty if movies is null or empty)
+     */
+    public static GenreIndex build(List<Movie> movies) {
+        return build(movies, new GenreDictionary());
+    }
+
+    /**
+     * Builds the index using (and extending) an existing genre dictionary.
+     */
+    public static GenreIndex build(List<Movie> movies, GenreDictionary dictionary) {
+        if (movies == null || movies.isEmpty()) {
+            return new GenreIndex(dictionary, new CompressedBitmap[0], 0);
+        }
+
+        List<IntList> lists = postingLists(movies, dictionary, 0);
+        CompressedBitmap[] postings = new CompressedBitmap[lists.size()];
+        for (int code = 0; code < postings.length; code++) {
+            IntList list = lists.get(code);
+            postings[code] = CompressedBitmap.ofSorted(list.toArray(), list.size());
+        }
+        return new GenreIndex(dictionary, postings, movies.size());
+    }
+
+    /**
+     * Builds the index of this catalog with movies appended: their ordinals
+     * follow {@link #movieCount()}, and only the postings of their genres
+     * are rebuilt; the others are shared with this index.
+     *
+     * @param added      the appended movies
+     * @param dictionary this index's dictionary or a copy of it; new genres are interned here
+     * @return the extended index
+     */
+    GenreIndex append(List<Movie> added, GenreDictionary dictionary) {
+        List<IntList> lists = postingLists(added, dictionary, movieCount);
+        CompressedBitmap[] extended = Arrays.copyOf(postings, Math.max(postings.length, lists.size()));
+        Arrays.fill(extended, postings.length, extended.length, CompressedBitmap.EMPTY);
+        for (int code = 0; code < lists.size(); code++) {
+            IntList list = lists.get(code);
+            if (list.isEmpty()) continue;
+
+            // the new ordinals all follow the old ones
+            extended[code] = extended[code].or(CompressedBitmap.ofSorted(list.toArray(), list.size()));
+        }
+        return new GenreIndex(dictionary, extended, movieCount + added.size());
+    }
+
+    // Ordinals per genre code, ascending, numbering the movies from firstOrdinal
+    private static List<IntList> postingLists(List<Movie> movies, GenreDictionary dictionary, int firstOrdinal) {
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            if (movie == null || movie.genres() == null) continue;
+
+            int ordinal = firstOrdinal + i;
+            for (String genre : movie.genres()) {
+                int code = dictionary.intern(genre);
+                while (lists.size() <= code) {
+                    lists.add(new IntList());
+                }
+                IntList list = lists.get(code);
+                // a movie listing the same genre twice is posted once
+                if (list.isEmpty() || list.last() != ordinal) {
+                    list.add(ordinal);
+                }
+            }
+        }
+        return lists;
+    }
+
+    // Index over postings stored elsewhere, e.g. a loaded snapshot; the array is not copied
+    static GenreIndex of(GenreDictionary dictionary, CompressedBitmap[] postings, int movieCount) {
+        return new GenreIndex(dictionary, postings, movieCount);
+    }
+
+    /**
+     * @return the ordinals of the movies with this genre code (empty if unknown)
+     */
+    public CompressedBitmap postings(int code) {
+        return code >= 0 && code < postings.length ? postings[code] : CompressedBitmap.EMPTY;
+    }
+
+    public CompressedBitmap postings(String genre) {
+        return postings(dictionary.codeOf(genre));
+    }
+
+    public int genreCount() {
+        return postings.length;
+    }
+
+    public int movieCount() {
+        return movieCount;
+    }
+}
@@ -0,0 +1,83 @@
+package logic;
+
+/**
+ * Full scan of the catalog's genre-mask column for the movies sharing at
+ * least one liked genre.
+ *
+ * Uses the incubating Vector API when the jdk.incubator.vector module is
+ * present (run with --add-modules jdk.incubator.vector): a vector of masks
+ * is ANDed with the liked mask and compared to zero per lane. Otherwise the
+ * same scan runs as a scalar loop; both produce identical results.
+ */
+public final class GenreMaskScan {
+
+    private static final boolean VECTORIZED = detectVectorApi();
+
+    private GenreMaskScan() {
+    }
+
+    /**
+     * @return true if scans run on the Vector API
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Writes the ordinals of every movie sharing a genre with the mask, ascending.
+     *
+     * @param catalog     the catalog whose mask column is scanned
+     * @param likedGenres the liked-genre mask, catalog.maskWords() long
+     * @param out         receives the ordinals; at least catalog.size() long
+     * @return the number of ordinals written
+     */
+    public static int matching(MovieCatalog catalog, long[] likedGenres, int[] out) {
+        if (VECTORIZED) {
+            return VectorGenreScan.matching(catalog.genreMaskColumn(), catalog.maskWords(), catalog.size(),
+                    likedGenres, out);
+        }
+        return matchingScalar(catalog, likedGenres, out);
+    }
+
+    /**
+     * The scalar form of {@link #matching}, always available.
+     */
+    public static int matchingScalar(MovieCatalog catalog, long[] likedGenres, int[] out) {
+        return scalar(catalog.genreMaskColumn(), catalog.maskWords(), 0, catalog.size(), likedGenres, out, 0);
+    }
+
+    // Scans movies [from, to), appending to out from index size
+    static int scalar(long[] column, int maskWords, int from, int to, long[] likedGenres, int[] out, int size) {
+        if (maskWords == 1) {
+            long liked = likedGenres[0];
+            for (int m = from; m < to; m++) {
+                if ((column[m] & liked) != 0) {
+                    out[size++] = m;
+                }
+            }
+            return size;
+        }
+        for (int m = from; m < to; m++) {
+            int base = m * maskWords;
+            long hit = 0;
+            for (int w = 0; w < maskWords; w++) {
+                hit |= column[base + w] & likedGenres[w];
+            }
+            if (hit != 0) {
+                out[size++] = m;
+            }
+        }
+        return size;
+    }
+
+    private static boolean detectVectorApi() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorGenreScan.lanes() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package logic;
+
+/**
+ * The original rule as a scorer: every unwatched movie sharing a liked genre
+ * is a candidate, scored by the number of watched movies carrying each of
+ * its genres (the same score as {@link Recommendation#recommendTopOrdinals}).
+ */
+public final class GenreOverlapScorer implements Scorer {
+
+    private final GenreProfileCache cache;
+
+    public GenreOverlapScorer() {
+        this(null);
+    }
+
+    /**
+     * @param cache shared candidate lists per liked-genre profile, or null
+     */
+    public GenreOverlapScorer(GenreProfileCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void score(ScoringContext context) {
+        MovieCatalog catalog = context.catalog();
+        long[] likedGenres = context.likedGenres();
+        int[] genreWeights = context.genreWeights();
+        CompressedBitmap watched = context.watched();
+        CompressedBitmap candidates = cache != null
+                ? cache.candidates(likedGenres) : Recommendation.candidates(catalog, likedGenres);
+        candidates.forEach(ordinal -> {
+            if (!watched.contains(ordinal)) {
+                context.add(ordinal, catalog.genreWeight(ordinal, genreWeights));
+            }
+        });
+    }
+}
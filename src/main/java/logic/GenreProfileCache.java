@@ -0,0 +1,113 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache from a liked-genre mask to the bitmap of every movie
+ * sharing at least one of those genres. Users with the same liked
+ * genres share one entry, so their per-user work is only removing their own
+ * watched movies from it.
+ *
+ * Safe to share between the batch worker threads. Two threads missing on
+ * the same profile may both compute it; the result is identical either way.
+ */
+public final class GenreProfileCache {
+
+    private final MovieCatalog catalog;
+    private final Map<Profile, CompressedBitmap> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GenreProfileCache(MovieCatalog catalog, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("ERROR: Cache size must be at least 1: " + maxEntries);
+        }
+        this.catalog = catalog;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Profile, CompressedBitmap> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the candidates of a liked-genre profile, computing them on a miss.
+     *
+     * @param likedGenres the liked-genre mask; not retained
+     * @return ordinals of the movies sharing a liked genre
+     */
+    public CompressedBitmap candidates(long[] likedGenres) {
+        Profile probe = new Profile(likedGenres);
+        CompressedBitmap cached;
+        synchronized (entries) {
+            cached = entries.get(probe);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        CompressedBitmap candidates = Recommendation.candidates(catalog, likedGenres);
+
+        synchronized (entries) {
+            entries.put(new Profile(likedGenres.clone()), candidates);
+        }
+        return candidates;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        long h = hits(), m = misses();
+        return String.format("Genre profile cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries",
+                h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), evictions(), size());
+    }
+
+    // Mask wrapper with value equality; the hash is computed once
+    private static final class Profile {
+        private final long[] words;
+        private final int hash;
+
+        Profile(long[] words) {
+            this.words = words;
+            this.hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Profile other && hash == other.hash && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
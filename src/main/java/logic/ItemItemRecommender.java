@@ -0,0 +1,247 @@
+package logic;
+
+import model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Item-to-item recommender built from co-watch counts: two movies are
+ * neighbours when the same users watched both.
+ *
+ * The build shards the users across threads; each shard counts movie pairs
+ * in its own sparse partial matrix, the partials are merged, normalized
+ * (cosine or Jaccard) and only the top-N neighbours of every movie are
+ * kept, in CSR layout (offsets, neighbour ordinals, similarities).
+ *
+ * A user's score for an unwatched movie is the sum of its similarities to
+ * the user's watched movies.
+ */
+public final class ItemItemRecommender implements MovieRecommender {
+
+    public enum Similarity {
+        COSINE,
+        JACCARD
+    }
+
+    private final int movieCount;
+    private final int[] neighborOffsets;
+    private final int[] neighbors;
+    private final float[] similarities;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private ItemItemRecommender(int movieCount, int[] neighborOffsets, int[] neighbors, float[] similarities) {
+        this.movieCount = movieCount;
+        this.neighborOffsets = neighborOffsets;
+        this.neighbors = neighbors;
+        this.similarities = similarities;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(movieCount));
+    }
+
+    /**
+     * Builds the neighbour lists from the parsed users.
+     *
+     * @param catalog      the movie catalog resolving watched IDs
+     * @param users        the parsed users; null entries are skipped
+     * @param topNeighbors neighbours kept per movie
+     * @param similarity   normalization of the raw co-watch counts
+     * @param parallelism  number of user shards built concurrently
+     * @return the recommender
+     */
+    public static ItemItemRecommender build(MovieCatalog catalog, List<User> users, int topNeighbors,
+                                            Similarity similarity, int parallelism) {
+        if (topNeighbors < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("ERROR: Neighbours and parallelism must be at least 1");
+        }
+        int movieCount = catalog.size();
+        List<User> input = users == null ? List.of() : users;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            //--- Phase 1: per-shard partial co-watch matrices ---//
+            int shardCount = Math.max(1, Math.min(parallelism, input.size()));
+            List<LongIntCounter> partialPairs = new ArrayList<>();
+            List<int[]> partialWatchCounts = new ArrayList<>();
+            for (int s = 0; s < shardCount; s++) {
+                partialPairs.add(null);
+                partialWatchCounts.add(null);
+            }
+            pool.submit(() -> IntStream.range(0, shardCount).parallel().forEach(shard -> {
+                int from = (int) ((long) input.size() * shard / shardCount);
+                int to = (int) ((long) input.size() * (shard + 1) / shardCount);
+                LongIntCounter pairs = new LongIntCounter(1024);
+                int[] watchCounts = new int[movieCount];
+                for (int i = from; i < to; i++) {
+                    User user = input.get(i);
+                    if (user == null || user.watchedMovies() == null) continue;
+
+                    int[] watched = catalog.ordinalsOf(user.watchedMovies()).toArray();
+                    for (int a = 0; a < watched.length; a++) {
+                        watchCounts[watched[a]]++;
+                        for (int b = a + 1; b < watched.length; b++) {
+                            pairs.add(((long) watched[a] << 32) | watched[b], 1);
+                        }
+                    }
+                }
+                partialPairs.set(shard, pairs);
+                partialWatchCounts.set(shard, watchCounts);
+            })).join();
+
+            //--- Phase 2: merge the partials ---//
+            LongIntCounter pairs = partialPairs.get(0);
+            int[] watchCounts = partialWatchCounts.get(0);
+            for (int s = 1; s < shardCount; s++) {
+                pairs.addAll(partialPairs.get(s));
+                int[] counts = partialWatchCounts.get(s);
+                for (int m = 0; m < movieCount; m++) {
+                    watchCounts[m] += counts[m];
+                }
+                partialPairs.set(s, null);
+            }
+
+            //--- Phase 3: symmetric normalized rows, then top-N per row ---//
+            int[] degree = new int[movieCount + 1];
+            for (int slot = 0; slot < pairs.capacity(); slot++) {
+                long key = pairs.keyAt(slot);
+                if (key < 0) continue;
+                degree[(int) (key >>> 32)]++;
+                degree[(int) key]++;
+            }
+            int[] rowOffsets = prefixSums(degree, movieCount);
+            int[] fill = new int[movieCount];
+            int[] rowNeighbors = new int[rowOffsets[movieCount]];
+            float[] rowSimilarities = new float[rowOffsets[movieCount]];
+            for (int slot = 0; slot < pairs.capacity(); slot++) {
+                long key = pairs.keyAt(slot);
+                if (key < 0) continue;
+                int a = (int) (key >>> 32), b = (int) key;
+                float sim = normalize(similarity, pairs.countAt(slot), watchCounts[a], watchCounts[b]);
+                int ia = rowOffsets[a] + fill[a]++;
+                rowNeighbors[ia] = b;
+                rowSimilarities[ia] = sim;
+                int ib = rowOffsets[b] + fill[b]++;
+                rowNeighbors[ib] = a;
+                rowSimilarities[ib] = sim;
+            }
+
+            int[] kept = new int[movieCount + 1];
+            for (int m = 0; m < movieCount; m++) {
+                kept[m] = Math.min(topNeighbors, rowOffsets[m + 1] - rowOffsets[m]);
+            }
+            int[] neighborOffsets = prefixSums(kept, movieCount);
+            int[] neighbors = new int[neighborOffsets[movieCount]];
+            float[] similarities = new float[neighborOffsets[movieCount]];
+            pool.submit(() -> IntStream.range(0, movieCount).parallel().forEach(m -> {
+                TopKHeap heap = new TopKHeap(topNeighbors);
+                for (int i = rowOffsets[m]; i < rowOffsets[m + 1]; i++) {
+                    heap.offer(rowSimilarities[i], rowNeighbors[i]);
+                }
+                int count = heap.size();
+                int[] ordinals = new int[count];
+                int[] bits = new int[count];
+                heap.drain(ordinals, bits);
+                for (int i = 0; i < count; i++) {
+                    neighbors[neighborOffsets[m] + i] = ordinals[i];
+                    similarities[neighborOffsets[m] + i] = TopKHeap.scoreAsFloat(bits[i]);
+                }
+            })).join();
+
+            return new ItemItemRecommender(movieCount, neighborOffsets, neighbors, similarities);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public int[] recommend(CompressedBitmap watchedOrdinals, int k) {
+        if (k <= 0 || watchedOrdinals.isEmpty()) {
+            return new int[0];
+        }
+        Scratch s = scratch.get();
+        watchedOrdinals.forEach(watched -> {
+            if (watched >= movieCount) return;
+            for (int i = neighborOffsets[watched]; i < neighborOffsets[watched + 1]; i++) {
+                s.add(neighbors[i], similarities[i]);
+            }
+        });
+
+        TopKHeap heap = new TopKHeap(Math.min(k, s.touched.size()));
+        for (int i = 0; i < s.touched.size(); i++) {
+            int ordinal = s.touched.get(i);
+            if (!watchedOrdinals.contains(ordinal)) {
+                heap.offer(s.scores[ordinal], ordinal);
+            }
+        }
+        s.reset();
+        return heap.drainOrdinals();
+    }
+
+    /**
+     * @return the kept neighbours of a movie, most similar first
+     */
+    public int[] neighbors(int ordinal) {
+        return Arrays.copyOfRange(neighbors, neighborOffsets[ordinal], neighborOffsets[ordinal + 1]);
+    }
+
+    /**
+     * @return the similarity to each of {@link #neighbors(int)}, same order
+     */
+    public float[] similarities(int ordinal) {
+        return Arrays.copyOfRange(similarities, neighborOffsets[ordinal], neighborOffsets[ordinal + 1]);
+    }
+
+    // Adds the unwatched neighbours of a movie to a blender's score buffer
+    void addNeighbors(int ordinal, CompressedBitmap watched, ScoringContext context) {
+        if (ordinal >= movieCount) return;
+        for (int i = neighborOffsets[ordinal]; i < neighborOffsets[ordinal + 1]; i++) {
+            if (!watched.contains(neighbors[i])) {
+                context.add(neighbors[i], similarities[i]);
+            }
+        }
+    }
+
+    //--- Helpers ---//
+    private static float normalize(Similarity similarity, int together, int watchedA, int watchedB) {
+        if (similarity == Similarity.JACCARD) {
+            return (float) together / (watchedA + watchedB - together);
+        }
+        return (float) (together / Math.sqrt((double) watchedA * watchedB));
+    }
+
+    // Turns counts[0..n) into offsets[0..n]
+    private static int[] prefixSums(int[] counts, int n) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        return offsets;
+    }
+
+    // Per-thread dense score buffer; only touched entries are cleared
+    private static final class Scratch {
+        final float[] scores;
+        final IntList touched = new IntList(64);
+
+        Scratch(int movieCount) {
+            scores = new float[movieCount];
+        }
+
+        void add(int ordinal, float score) {
+            if (scores[ordinal] == 0) {
+                touched.add(ordinal);
+            }
+            scores[ordinal] += score;
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                scores[touched.get(i)] = 0;
+            }
+            touched.clear();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative long keys to int counts,
+ * used for sparse co-occurrence counting without boxing. Slots are read
+ * back by index: {@link #keyAt(int)} is -1 for an empty slot.
+ */
+final class LongIntCounter {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int mask;
+
+    LongIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    void add(long key, int delta) {
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) {
+                counts[slot] += delta;
+                return;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                counts[slot] = delta;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int get(long key) {
+        int slot = slot(key);
+        while (true) {
+            long current = keys[slot];
+            if (current == key) return counts[slot];
+            if (current == EMPTY) return 0;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds every entry of another counter into this one.
+     */
+    void addAll(LongIntCounter other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int countAt(int slot) {
+        return counts[slot];
+    }
+
+    private int slot(long key) {
+        // Murmur3 finalizer spreads the packed (row, column) pairs
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+}
@@ -10,24 +10,59 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class Main {
+    private static final Path SNAPSHOT_PATH = Path.of("catalog.snapshot");
+    // "true" fills empty recommendation lists with popular movies. Off by default: on the text
+    // path the movies are ranked by a counting pass, which parses the users file a second time
+    private static final String POPULAR_FALLBACK_PROPERTY = "recommendations.popularFallback";
+    // size in bytes of the ranges of the users file parsed in parallel
+    private static final String CHUNK_BYTES_PROPERTY = "recommendations.chunkBytes";
+
     public static void main(String[] args) {
         Path outPath = Path.of("recommendations.txt");
+        Path moviesPath = Path.of("src/main/resources/movies.txt");
+        Path usersPath = Path.of("src/main/resources/users.txt");
         String output = "";
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean popularFallback = Boolean.getBoolean(POPULAR_FALLBACK_PROPERTY);
+
+        //-------- Snapshot --------//
+
+        // Input files unchanged since the last fully valid run: reuse its parsed catalog and users.
+        // Without a snapshot the inputs are only checksummed as the parsers read them
+        if (Files.exists(SNAPSHOT_PATH)) {
+            try {
+                CatalogSnapshot snapshot = CatalogSnapshot.loadIfCurrent(SNAPSHOT_PATH,
+                        CatalogSnapshot.sourceChecksum(moviesPath, usersPath));
+                if (snapshot != null) {
+                    PopularityIndex popularity = popularFallback
+                            ? PopularityIndex.fromCounts(snapshot.catalog(), snapshot.watchCounts()) : null;
+                    Recommendation.generateResolvedRecommendationsFile(snapshot.catalog(), snapshot.resolvedUsers(),
+                            popularity, RecommendationBatch.Mode.FORK_JOIN, parallelism);
+                    return;
+                }
+            } catch (IOException e) {
+                // an unreadable input file is reported by its parser below
+            }
+        }
         
         
         MovieFileParser movieParser = new MovieFileParser();
-        UserFileParser userParser = new UserFileParser();
+        GenreDictionary genreDictionary = new GenreDictionary();
         List<Movie> movies = List.of();
-        List<User> users = List.of();
+        boolean moviesParsed = false;
+        // CRC32C of the movies and users files, taken while parsing
+        long[] sourceCrcs = new long[2];
         Set<String> existingUserIds = new java.util.HashSet<>(Set.of());
         
         //-------- Movies Processing --------//
         
         // Movies Parsing
         try {
-            movies = movieParser.readMovies("src/main/resources/movies.txt");
+            movies = movieParser.readMovies(moviesPath.toString(), genreDictionary, crc -> sourceCrcs[0] = crc);
+            moviesParsed = true;
             //System.out.println("-----------------------------------");
             //System.out.println("\u001B[1;32mMovies parsed successfully\u001B[0m");
             //System.out.println("-----------------------------------");
@@ -58,39 +93,58 @@ public class Main {
 
         //-------- Users Processing --------//
         
-        // Users Parsing
-        try {
-            users = userParser.readUsers("src/main/resources/users.txt");
-            //System.out.println("\u001B[1;32mUsers parsed successfully\u001B[0m");
-            //System.out.println("-----------------------------------");
+        // Users are parsed (in parallel, a group of ranges at a time) with their watched IDs
+        // resolved to catalog ordinals, validated and recommended in one pass over the file,
+        // so memory stays flat; an invalid user replaces the output with its error.
+        // After an invalid user the rest of the file is still parsed, not recommended, so a
+        // malformed record anywhere is reported instead, whatever the group size
+        MovieCatalog catalog = MovieCatalog.of(movies, genreDictionary);
+        CatalogUserParser userParser = new CatalogUserParser(catalog,
+                Integer.getInteger(CHUNK_BYTES_PROPERTY, UserFileParser.DEFAULT_CHUNK_BYTES));
+        // valid users are kept compactly for the snapshot, which is only written if every step succeeds
+        CatalogSnapshot.Builder snapshot = moviesParsed ? CatalogSnapshot.builder(catalog) : null;
+        String[] userError = new String[1];
+        try (Stream<ResolvedUser> users = userParser.streamUsers(usersPath.toString(), parallelism,
+                crc -> sourceCrcs[1] = crc)) {
+            PopularityIndex popularity = popularFallback ? PopularityIndex.fromCounts(catalog,
+                    userParser.countWatchers(usersPath.toString(), parallelism)) : null;
+            Recommendation.generateResolvedRecommendationsFile(catalog, users.filter(u -> {
+                //System.out.println("User Name: " + u.name());
+                //System.out.println("User ID: " + u.id());
+                if (userError[0] != null) return false;
+
+                String error = Validation.validateUserName(u, existingUserIds);
+                if (error == null) {
+                    error = Validation.validateUserId(u, existingUserIds);
+                }
+                if (error != null) {
+                    userError[0] = error;
+                    return false;
+                }
+                existingUserIds.add(u.id());
+                if (snapshot != null) {
+                    snapshot.add(u);
+                }
+                return true;
+            }), popularity, RecommendationBatch.Mode.FORK_JOIN, parallelism);
         } catch (Exception e) {
+            // Users Parsing failed: report it and write no recommendations
             System.out.println(e.getMessage());
+            Recommendation.generateRecommendationsFile(catalog, List.<User>of(),
+                    RecommendationBatch.Mode.FORK_JOIN, parallelism);
+            return;
         }
-        
-        // Users Validation
-        for (User u : users) {
-            //System.out.println("User Name: " + u.name());
-            //System.out.println("User ID: " + u.id());
-            
-            output = Validation.validateUserName(u, existingUserIds);
-                if(output != null){
-                    output = FileHandler.removeAnsiCodes(output);
-                    FileHandler.writeFile(outPath, output);
-                    return;
-                }
-            output = Validation.validateUserId(u, existingUserIds);
-                if(output != null){
-                    output = FileHandler.removeAnsiCodes(output);
-                    FileHandler.writeFile(outPath, output);
-                    return;
-                }
-            
-            existingUserIds.add(u.id());
-            
-            //System.out.println("-----------------------------------");
+        if (userError[0] != null) {
+            FileHandler.writeFile(outPath, FileHandler.removeAnsiCodes(userError[0]));
+            return;
+        }
+
+        if (snapshot != null) {
+            try {
+                snapshot.write(SNAPSHOT_PATH, CatalogSnapshot.sourceChecksum(sourceCrcs[0], sourceCrcs[1]));
+            } catch (IOException e) {
+                // the snapshot is only a cache; the next run parses the text files again
+            }
         }
-        
-        // Generate Recommendations File
-        Recommendation.generateRecommendationsFile(users, movies);
     }
 }
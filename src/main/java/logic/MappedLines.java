@@ -0,0 +1,144 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Checksum;
+
+/**
+ * Lines of a file read through read-only mappings of at most windowBytes
+ * each, as BufferedReader.readLine() would split them: \n, \r and \r\n end
+ * a line and a last line needs no terminator. The current line is exposed
+ * as the byte range [start, end) of {@link #buf}, which changes when the
+ * reader moves to the next window; a line must fit in one window.
+ * {@link #fields()} tokenizes the current line.
+ */
+final class MappedLines implements Closeable {
+
+    static final int DEFAULT_WINDOW_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowBytes;
+    private final FieldTokenizer fields = new FieldTokenizer();
+    private byte[] scratch = new byte[256];
+
+    MappedByteBuffer buf;
+    private long base;
+    private int limit;
+    private int pos;
+    // the current line, without its terminator, as positions in buf
+    int start;
+    int end;
+
+    /**
+     * @param path        the file
+     * @param fromOffset  byte offset of the first line read (clamped to the file)
+     * @param windowBytes size of each mapping
+     */
+    MappedLines(Path path, long fromOffset, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.windowBytes = windowBytes;
+        try {
+            this.size = channel.size();
+            map(Math.min(Math.max(0, fromOffset), size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // File offset of the current line's first byte
+    long lineOffset() {
+        return base + start;
+    }
+
+    private void map(long at) throws IOException {
+        base = at;
+        limit = (int) Math.min(windowBytes, size - at);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, at, limit);
+        pos = 0;
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return false at the end of the file
+     * @throws IOException if mapping fails or a line is longer than a window
+     */
+    boolean next() throws IOException {
+        while (true) {
+            boolean lastWindow = base + limit >= size;
+            int i = pos;
+            while (i < limit) {
+                byte b = buf.get(i);
+                if (b == '\n' || b == '\r') break;
+                i++;
+            }
+            // a \r ending the window may be the first half of \r\n, so it needs the next window too
+            if (i < limit && (lastWindow || i + 1 < limit || buf.get(i) == '\n')) {
+                start = pos;
+                end = i;
+                pos = i + 1;
+                if (buf.get(i) == '\r' && pos < limit && buf.get(pos) == '\n') {
+                    pos++;
+                }
+                return true;
+            }
+            if (lastWindow) {
+                if (pos == limit) return false;
+                start = pos;
+                end = limit;
+                pos = limit;
+                return true;
+            }
+            if (pos == 0) {
+                throw new IOException("ERROR: Line longer than the mapping window at byte " + base);
+            }
+            map(base + pos);
+        }
+    }
+
+    // Whether the current line is empty once trimmed
+    boolean isBlank() {
+        return FieldTokenizer.skipBlank(buf, start, end) == end;
+    }
+
+    // The reused tokenizer, reset to the current line
+    FieldTokenizer fields() {
+        return fields.reset(buf, start, end);
+    }
+
+    String decode(int from, int to) {
+        int length = to - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+        }
+        buf.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    long size() {
+        return size;
+    }
+
+    // Adds file bytes [from, to) to the checksum, straight from the current window when it holds them
+    void checksum(Checksum checksum, long from, long to) throws IOException {
+        if (from >= base && to <= base + limit) {
+            checksum.update(buf.slice((int) (from - base), (int) (to - from)));
+            return;
+        }
+        for (long at = from; at < to; at += windowBytes) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(windowBytes, to - at)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,293 @@
+package logic;
+
+import model.User;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate user-to-user kNN recommender.
+ *
+ * Every user's watched set is summarized by a MinHash signature of
+ * {@code signatureWidth} values; the fraction of equal positions between two
+ * signatures estimates the Jaccard similarity of the sets. Signatures are
+ * cut into {@code bands} bands and users whose band hashes collide become
+ * candidate neighbours, so only a small bucket is compared instead of every
+ * user. More bands (fewer rows per band) find more neighbours at a higher
+ * query cost; a wider signature gives finer similarity estimates.
+ *
+ * A user is recommended the movies their nearest neighbours watched and
+ * they did not, each weighted by the neighbour's estimated similarity.
+ * Candidates with nothing new to offer (the user themself, or users whose
+ * watched set is contained in theirs) are not counted as neighbours.
+ */
+public final class MinHashRecommender implements MovieRecommender {
+
+    private static final long PRIME = (1L << 31) - 1;
+
+    private final int width;
+    private final int bands;
+    private final int rows;
+    private final int neighborCount;
+    private final int movieCount;
+    private final int userCount;
+    private final long[] hashA;
+    private final long[] hashB;
+    // userCount * width, row-major
+    private final int[] signatures;
+    // per band: (band hash << 32 | user) sorted ascending
+    private final long[][] buckets;
+    // watched ordinals of every user, CSR
+    private final int[] userOffsets;
+    private final int[] userMovies;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private MinHashRecommender(int width, int bands, int neighborCount, int movieCount, long[] hashA, long[] hashB,
+                               int[] signatures, long[][] buckets, int[] userOffsets, int[] userMovies) {
+        this.width = width;
+        this.bands = bands;
+        this.rows = width / bands;
+        this.neighborCount = neighborCount;
+        this.movieCount = movieCount;
+        this.userCount = userOffsets.length - 1;
+        this.hashA = hashA;
+        this.hashB = hashB;
+        this.signatures = signatures;
+        this.buckets = buckets;
+        this.userOffsets = userOffsets;
+        this.userMovies = userMovies;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(userCount, movieCount));
+    }
+
+    /**
+     * Computes the signatures and LSH buckets of every user.
+     *
+     * @param catalog        the movie catalog resolving watched IDs
+     * @param users          the parsed users; null entries count as empty
+     * @param signatureWidth number of MinHash functions
+     * @param bands          number of LSH bands; must divide signatureWidth
+     * @param neighborCount  neighbours used per recommendation
+     * @param parallelism    worker threads for signatures and bucketing
+     * @param seed           seed of the hash functions
+     * @return the recommender
+     */
+    public static MinHashRecommender build(MovieCatalog catalog, List<User> users, int signatureWidth, int bands,
+                                           int neighborCount, int parallelism, long seed) {
+        if (signatureWidth < 1 || bands < 1 || signatureWidth % bands != 0) {
+            throw new IllegalArgumentException("ERROR: Bands must divide the signature width: "
+                    + signatureWidth + "/" + bands);
+        }
+        if (neighborCount < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("ERROR: Neighbours and parallelism must be at least 1");
+        }
+
+        Random random = new Random(seed);
+        long[] hashA = new long[signatureWidth];
+        long[] hashB = new long[signatureWidth];
+        for (int i = 0; i < signatureWidth; i++) {
+            hashA[i] = 1 + random.nextInt((int) PRIME - 1);
+            hashB[i] = random.nextInt((int) PRIME);
+        }
+
+        List<User> input = users == null ? List.of() : users;
+        int userCount = input.size();
+        int rows = signatureWidth / bands;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            //--- Watched lists (CSR) ---//
+            int[][] watched = new int[userCount][];
+            pool.submit(() -> IntStream.range(0, userCount).parallel().forEach(u -> {
+                User user = input.get(u);
+                watched[u] = user == null || user.watchedMovies() == null
+                        ? new int[0] : catalog.ordinalsOf(user.watchedMovies()).toArray();
+            })).join();
+            int[] userOffsets = new int[userCount + 1];
+            for (int u = 0; u < userCount; u++) {
+                userOffsets[u + 1] = userOffsets[u] + watched[u].length;
+            }
+            int[] userMovies = new int[userOffsets[userCount]];
+            for (int u = 0; u < userCount; u++) {
+                System.arraycopy(watched[u], 0, userMovies, userOffsets[u], watched[u].length);
+                watched[u] = null;
+            }
+
+            //--- Signatures, in parallel over users ---//
+            int[] signatures = new int[userCount * signatureWidth];
+            pool.submit(() -> IntStream.range(0, userCount).parallel().forEach(u ->
+                    signature(hashA, hashB, userMovies, userOffsets[u], userOffsets[u + 1],
+                            signatures, u * signatureWidth))).join();
+
+            //--- Buckets, in parallel over bands ---//
+            long[][] buckets = new long[bands][];
+            pool.submit(() -> IntStream.range(0, bands).parallel().forEach(band -> {
+                long[] entries = new long[userCount];
+                int size = 0;
+                for (int u = 0; u < userCount; u++) {
+                    if (userOffsets[u] == userOffsets[u + 1]) continue; // nothing watched
+                    int key = bandHash(signatures, u * signatureWidth + band * rows, rows, band);
+                    entries[size++] = ((long) key << 32) | u;
+                }
+                long[] sorted = Arrays.copyOf(entries, size);
+                Arrays.sort(sorted);
+                buckets[band] = sorted;
+            })).join();
+
+            return new MinHashRecommender(signatureWidth, bands, neighborCount, catalog.size(),
+                    hashA, hashB, signatures, buckets, userOffsets, userMovies);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public int[] recommend(CompressedBitmap watchedOrdinals, int k) {
+        if (k <= 0 || watchedOrdinals.isEmpty()) {
+            return new int[0];
+        }
+        int[] watched = watchedOrdinals.toArray();
+        int[] query = new int[width];
+        signature(hashA, hashB, watched, 0, watched.length, query, 0);
+
+        Scratch s = scratch.get();
+        s.nextStamp();
+
+        //--- Candidate neighbours from colliding buckets ---//
+        TopKHeap nearest = new TopKHeap(neighborCount);
+        for (int band = 0; band < bands; band++) {
+            long[] entries = buckets[band];
+            int key = bandHash(query, band * rows, rows, band);
+            for (int i = lowerBound(entries, (long) key << 32); i < entries.length && (int) (entries[i] >> 32) == key; i++) {
+                int user = (int) entries[i];
+                if (s.seenUsers[user] == s.stamp) continue;
+                s.seenUsers[user] = s.stamp;
+                // the querying user, or anyone who watched nothing beyond it, would take a slot and add nothing
+                if (!watchedOtherThan(user, watched)) continue;
+
+                int equal = 0;
+                int base = user * width;
+                for (int h = 0; h < width; h++) {
+                    if (signatures[base + h] == query[h]) equal++;
+                }
+                nearest.offer((float) equal / width, user);
+            }
+        }
+
+        //--- Movies the neighbours watched and the user did not ---//
+        int count = nearest.size();
+        int[] neighbors = new int[count];
+        int[] similarityBits = new int[count];
+        nearest.drain(neighbors, similarityBits);
+        for (int n = 0; n < count; n++) {
+            float similarity = TopKHeap.scoreAsFloat(similarityBits[n]);
+            for (int i = userOffsets[neighbors[n]]; i < userOffsets[neighbors[n] + 1]; i++) {
+                int movie = userMovies[i];
+                if (similarity > 0 && Arrays.binarySearch(watched, movie) < 0) {
+                    s.add(movie, similarity);
+                }
+            }
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(k, s.touched.size()));
+        for (int i = 0; i < s.touched.size(); i++) {
+            int movie = s.touched.get(i);
+            heap.offer(s.scores[movie], movie);
+        }
+        s.resetScores();
+        return heap.drainOrdinals();
+    }
+
+    public int signatureWidth() {
+        return width;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    // Whether the user watched a movie missing from the sorted watched array
+    private boolean watchedOtherThan(int user, int[] watched) {
+        for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+            if (Arrays.binarySearch(watched, userMovies[i]) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //--- Hashing helpers ---//
+    // MinHash of values[from, to) under each (a * x + b) mod p function
+    private static void signature(long[] hashA, long[] hashB, int[] values, int from, int to,
+                                  int[] out, int outOffset) {
+        for (int h = 0; h < hashA.length; h++) {
+            long a = hashA[h], b = hashB[h];
+            long min = Long.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                long hash = (a * (values[i] + 1L) + b) % PRIME;
+                if (hash < min) min = hash;
+            }
+            out[outOffset + h] = (int) Math.min(min, Integer.MAX_VALUE);
+        }
+    }
+
+    private static int bandHash(int[] signature, int offset, int rows, int band) {
+        long h = 0x9E3779B97F4A7C15L * (band + 1);
+        for (int r = 0; r < rows; r++) {
+            h = (h ^ signature[offset + r]) * 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // First index whose entry is >= target
+    private static int lowerBound(long[] entries, long target) {
+        int lo = 0, hi = entries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Per-thread buffers: a stamp per user to dedupe candidates, dense movie scores
+    private static final class Scratch {
+        final int[] seenUsers;
+        final float[] scores;
+        final IntList touched = new IntList(64);
+        int stamp;
+
+        Scratch(int userCount, int movieCount) {
+            seenUsers = new int[userCount];
+            scores = new float[movieCount];
+        }
+
+        void nextStamp() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(seenUsers, 0);
+                stamp = 1;
+            }
+        }
+
+        void add(int movie, float score) {
+            if (scores[movie] == 0) {
+                touched.add(movie);
+            }
+            scores[movie] += score;
+        }
+
+        void resetScores() {
+            for (int i = 0; i < touched.size(); i++) {
+                scores[touched.get(i)] = 0;
+            }
+            touched.clear();
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package logic;
+
+import model.Movie;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable view of the parsed movie list addressed by ordinal (the movie's
+ * position in the parsed file), with a hash index from movie ID to ordinal
+ * and the genre index used for candidate generation.
+ *
+ * Genres are dictionary-encoded: every ordinal owns a genre bitmask of
+ * {@link #maskWords()} longs stored in one flat column, so testing whether
+ * a movie shares a genre with a user is an AND per word.
+ *
+ * Movie IDs are not required to be unique here (uniqueness is a validation
+ * concern), so every ordinal sharing an ID is reachable through
+ * {@link #nextWithSameId(int)}. The ID index is built on the first lookup,
+ * so a catalog that is only ranked and printed never hashes its IDs.
+ */
+public final class MovieCatalog {
+
+    private final List<Movie> movies;
+    // set for a catalog restored from a snapshot: titles and IDs are decoded from it on demand
+    private final CatalogSnapshot.MovieColumns columns;
+    private final GenreDictionary genres;
+    private final GenreIndex genreIndex;
+    private final int maskWords;
+    private final long[] genreMasks;
+    // built on first ID lookup
+    private volatile IdChains idChains;
+    // built on first use by the streaming writer, unless restored from a snapshot
+    private volatile TitleIndex titleIndex;
+    // built on first use by the catalog-aware user parser
+    private volatile MovieIdIndex idIndex;
+
+    private MovieCatalog(List<Movie> movies, CatalogSnapshot.MovieColumns columns, GenreDictionary genres,
+                         GenreIndex genreIndex, long[] genreMasks, TitleIndex titleIndex) {
+        this.movies = movies;
+        this.columns = columns;
+        this.genres = genres;
+        this.genreIndex = genreIndex;
+        this.maskWords = genres.maskWords();
+        this.genreMasks = genreMasks;
+        this.titleIndex = titleIndex;
+    }
+
+    /**
+     * Builds the catalog from the movie parser output.
+     *
+     * @param movies the parsed movies (null is treated as empty)
+     * @return the catalog
+     */
+    public static MovieCatalog of(List<Movie> movies) {
+        return of(movies, new GenreDictionary());
+    }
+
+    /**
+     * Builds the catalog reusing the genre codes assigned while parsing.
+     *
+     * @param movies the parsed movies (null is treated as empty)
+     * @param genres the dictionary filled by the parser; genres it has not
+     *               seen yet are interned here
+     * @return the catalog
+     */
+    public static MovieCatalog of(List<Movie> movies, GenreDictionary genres) {
+        List<Movie> list = movies == null ? List.of() : movies;
+
+        // the index interns any remaining genres, so the mask width is final after it
+        GenreIndex genreIndex = GenreIndex.build(list, genres);
+        long[] genreMasks = new long[list.size() * genres.maskWords()];
+        setGenreMasks(list, genres, genreMasks, 0);
+
+        return new MovieCatalog(list, null, genres, genreIndex, genreMasks, null);
+    }
+
+    // Catalog over a snapshot's columns, reusing its stored genre and title indexes
+    static MovieCatalog restored(CatalogSnapshot.MovieColumns columns, GenreDictionary genres, GenreIndex genreIndex,
+                                 long[] genreMasks, int[] firstWithSameTitle, boolean duplicateTitles) {
+        return new MovieCatalog(columns, columns, genres, genreIndex, genreMasks,
+                new TitleIndex(firstWithSameTitle, duplicateTitles, null, null));
+    }
+
+    /**
+     * Builds a catalog with the given movies appended. Existing ordinals and
+     * genre codes stay the same; this catalog is not modified.
+     *
+     * Only the new movies are indexed: the genre postings they do not touch
+     * are shared, the mask column is copied and extended, and ID and title
+     * indexes already built here are carried over with the new movies added.
+     *
+     * @param added the new movies, in file order
+     * @return the extended catalog
+     */
+    public MovieCatalog extend(List<Movie> added) {
+        int firstNew = movies.size();
+        GenreDictionary extendedGenres = genres.copy();
+        // the index interns the new genres, so the mask width is final after it
+        GenreIndex extendedIndex = genreIndex.append(added, extendedGenres);
+        int words = extendedGenres.maskWords();
+        long[] masks;
+        if (words == maskWords) {
+            masks = Arrays.copyOf(genreMasks, (firstNew + added.size()) * words);
+        } else {
+            masks = new long[(firstNew + added.size()) * words];
+            for (int ordinal = 0; ordinal < firstNew; ordinal++) {
+                System.arraycopy(genreMasks, ordinal * maskWords, masks, ordinal * words, maskWords);
+            }
+        }
+        setGenreMasks(added, extendedGenres, masks, firstNew);
+
+        MovieCatalog extended = new MovieCatalog(AppendedMovies.of(movies, added), null, extendedGenres,
+                extendedIndex, masks, null);
+        IdChains chains = idChains;
+        if (chains != null) {
+            extended.idChains = chains.append(extended, firstNew);
+        }
+        TitleIndex titles = titleIndex;
+        if (titles != null && titles.byTitle() != null) {
+            extended.titleIndex = titles.append(extended, firstNew);
+        }
+        return extended;
+    }
+
+    /**
+     * @return the first ordinal carrying this ID, or -1 if the ID is unknown
+     */
+    public int ordinalOf(String movieId) {
+        return idChains().first(movieId);
+    }
+
+    /**
+     * Resolves movie IDs to the ordinals of every movie carrying them;
+     * unknown IDs are ignored.
+     *
+     * @param movieIds the IDs, e.g. a user's watched movies
+     * @return the ordinals as a compressed bitmap
+     */
+    public CompressedBitmap ordinalsOf(Collection<String> movieIds) {
+        IdChains chains = idChains();
+        IntList ordinals = new IntList(movieIds.size());
+        for (String movieId : movieIds) {
+            for (int ordinal = chains.first(movieId); ordinal >= 0; ordinal = chains.next()[ordinal]) {
+                ordinals.add(ordinal);
+            }
+        }
+        int[] sorted = ordinals.toArray();
+        Arrays.sort(sorted);
+        return CompressedBitmap.ofSorted(sorted, sorted.length);
+    }
+
+    /**
+     * @return the next ordinal with the same ID as the given one, or -1
+     */
+    public int nextWithSameId(int ordinal) {
+        return idChains().next()[ordinal];
+    }
+
+    public Movie movie(int ordinal) {
+        return movies.get(ordinal);
+    }
+
+    /**
+     * Same as {@code movie(ordinal).title()}, but a snapshot-backed catalog
+     * decodes only the title.
+     */
+    public String title(int ordinal) {
+        return columns != null ? columns.title(ordinal) : movies.get(ordinal).title();
+    }
+
+    /**
+     * @return the movie's ID, or null if the movie or its ID is null
+     */
+    public String id(int ordinal) {
+        if (columns != null) return columns.id(ordinal);
+        Movie movie = movies.get(ordinal);
+        return movie == null ? null : movie.id();
+    }
+
+    public List<Movie> movies() {
+        return movies;
+    }
+
+    public int size() {
+        return movies.size();
+    }
+
+    public boolean isEmpty() {
+        return movies.isEmpty();
+    }
+
+    public GenreIndex genreIndex() {
+        return genreIndex;
+    }
+
+    public GenreDictionary genres() {
+        return genres;
+    }
+
+    /**
+     * @return number of longs in one genre mask
+     */
+    public int maskWords() {
+        return maskWords;
+    }
+
+    /**
+     * @return a zeroed mask sized for this catalog
+     */
+    public long[] newGenreMask() {
+        return new long[maskWords];
+    }
+
+    /**
+     * ORs the genre mask of a movie into the given mask.
+     */
+    public void orGenreMask(int ordinal, long[] mask) {
+        int base = ordinal * maskWords;
+        for (int w = 0; w < maskWords; w++) {
+            mask[w] |= genreMasks[base + w];
+        }
+    }
+
+    /**
+     * @return true if the movie has at least one genre set in the mask
+     */
+    public boolean sharesGenre(int ordinal, long[] mask) {
+        int base = ordinal * maskWords;
+        long hit = 0;
+        for (int w = 0; w < maskWords; w++) {
+            hit |= genreMasks[base + w] & mask[w];
+        }
+        return hit != 0;
+    }
+
+    /**
+     * Adds one to the count of every genre of the movie.
+     *
+     * @param counts per-genre-code counters, at least maskWords() * 64 long
+     */
+    public void countGenres(int ordinal, int[] counts) {
+        int base = ordinal * maskWords;
+        for (int w = 0; w < maskWords; w++) {
+            for (long bits = genreMasks[base + w]; bits != 0; bits &= bits - 1) {
+                counts[(w << 6) + Long.numberOfTrailingZeros(bits)]++;
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the weights of the movie's genres
+     */
+    public int genreWeight(int ordinal, int[] weights) {
+        int base = ordinal * maskWords;
+        int sum = 0;
+        for (int w = 0; w < maskWords; w++) {
+            for (long bits = genreMasks[base + w]; bits != 0; bits &= bits - 1) {
+                sum += weights[(w << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return sum;
+    }
+
+    // Flat mask column (ordinal * maskWords + word); shared, never modified
+    long[] genreMaskColumn() {
+        return genreMasks;
+    }
+
+    /**
+     * @return the first ordinal carrying the same title as this one
+     */
+    int firstWithSameTitle(int ordinal) {
+        return titleIndex().first()[ordinal];
+    }
+
+    /**
+     * @return true if any two movies share a title
+     */
+    boolean hasDuplicateTitles() {
+        return titleIndex().duplicates();
+    }
+
+    // Byte-keyed ID dictionary for resolving IDs straight from a parser's buffer
+    MovieIdIndex idIndex() {
+        MovieIdIndex index = idIndex;
+        if (index == null) {
+            // racing threads build equal indexes; either copy is fine
+            index = MovieIdIndex.build(this);
+            idIndex = index;
+        }
+        return index;
+    }
+
+    private IdChains idChains() {
+        IdChains chains = idChains;
+        if (chains == null) {
+            // racing threads build equal chains; either copy is fine
+            int size = movies.size();
+            Map<String, Integer> first = new HashMap<>(Math.max(16, size * 2));
+            int[] next = new int[size];
+            Arrays.fill(next, -1);
+            // tail of each ID's chain, so duplicates stay in ordinal order
+            Map<String, Integer> lastOrdinalById = new HashMap<>();
+
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                String id = id(ordinal);
+                if (id == null) continue;
+
+                Integer previous = first.putIfAbsent(id, ordinal);
+                if (previous != null) {
+                    int tail = lastOrdinalById.getOrDefault(id, previous);
+                    next[tail] = ordinal;
+                    lastOrdinalById.put(id, ordinal);
+                }
+            }
+            chains = new IdChains(first, new HashMap<>(), next);
+            idChains = chains;
+        }
+        return chains;
+    }
+
+    private TitleIndex titleIndex() {
+        TitleIndex index = titleIndex;
+        if (index == null) {
+            // racing threads compute the same index; either copy is fine
+            Map<String, Integer> firstByTitle = new HashMap<>(Math.max(16, movies.size() * 2));
+            int[] first = new int[movies.size()];
+            boolean duplicates = false;
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                Movie movie = movies.get(ordinal);
+                String title = movie == null ? null : movie.title();
+                Integer previous = firstByTitle.putIfAbsent(title, ordinal);
+                first[ordinal] = previous == null ? ordinal : previous;
+                duplicates |= previous != null;
+            }
+            index = new TitleIndex(first, duplicates, firstByTitle, new HashMap<>());
+            titleIndex = index;
+        }
+        return index;
+    }
+
+    // Sets the genre bits of movies numbered from firstOrdinal in a flat mask column
+    private static void setGenreMasks(List<Movie> movies, GenreDictionary genres, long[] masks, int firstOrdinal) {
+        int words = genres.maskWords();
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            if (movie == null || movie.genres() == null) continue;
+
+            int base = (firstOrdinal + i) * words;
+            for (String genre : movie.genres()) {
+                int code = genres.codeOf(genre);
+                masks[base + (code >>> 6)] |= 1L << code;
+            }
+        }
+    }
+
+    // First ordinal per ID, and per ordinal the next one sharing its ID (or -1).
+    // IDs first seen in appended movies are kept apart, so the first catalog's map is shared, never copied
+    private record IdChains(Map<String, Integer> first, Map<String, Integer> appendedFirst, int[] next) {
+
+        int first(String movieId) {
+            Integer ordinal = first.get(movieId);
+            if (ordinal == null) {
+                ordinal = appendedFirst.get(movieId);
+            }
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        IdChains append(MovieCatalog extended, int firstNew) {
+            int[] extendedNext = Arrays.copyOf(next, extended.size());
+            Arrays.fill(extendedNext, firstNew, extendedNext.length, -1);
+            Map<String, Integer> extendedAppended = new HashMap<>(appendedFirst);
+            for (int ordinal = firstNew; ordinal < extended.size(); ordinal++) {
+                String id = extended.id(ordinal);
+                if (id == null) continue;
+
+                Integer head = first.get(id);
+                if (head == null) {
+                    head = extendedAppended.putIfAbsent(id, ordinal);
+                }
+                if (head != null) {
+                    int tail = head;
+                    while (extendedNext[tail] >= 0) {
+                        tail = extendedNext[tail];
+                    }
+                    extendedNext[tail] = ordinal;
+                }
+            }
+            return new IdChains(first, extendedAppended, extendedNext);
+        }
+    }
+
+    // First ordinal per title, kept apart for appended titles as in IdChains; no maps if restored from a snapshot
+    private record TitleIndex(int[] first, boolean duplicates, Map<String, Integer> byTitle,
+                              Map<String, Integer> appendedByTitle) {
+
+        TitleIndex append(MovieCatalog extended, int firstNew) {
+            int[] extendedFirst = Arrays.copyOf(first, extended.size());
+            Map<String, Integer> extendedAppended = new HashMap<>(appendedByTitle);
+            boolean extendedDuplicates = duplicates;
+            for (int ordinal = firstNew; ordinal < extended.size(); ordinal++) {
+                Movie movie = extended.movie(ordinal);
+                String title = movie == null ? null : movie.title();
+                Integer previous = byTitle.get(title);
+                if (previous == null) {
+                    previous = extendedAppended.putIfAbsent(title, ordinal);
+                }
+                extendedFirst[ordinal] = previous == null ? ordinal : previous;
+                extendedDuplicates |= previous != null;
+            }
+            return new TitleIndex(extendedFirst, extendedDuplicates, byTitle, extendedAppended);
+        }
+    }
+
+    // Movies of an extended catalog: the first catalog's list, shared, then every movie appended since
+    private static final class AppendedMovies extends AbstractList<Movie> implements RandomAccess {
+        private final List<Movie> head;
+        private final List<Movie> tail;
+
+        private AppendedMovies(List<Movie> head, List<Movie> tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+
+        static List<Movie> of(List<Movie> movies, List<Movie> added) {
+            if (movies instanceof AppendedMovies appended) {
+                List<Movie> tail = new ArrayList<>(appended.tail.size() + added.size());
+                tail.addAll(appended.tail);
+                tail.addAll(added);
+                return new AppendedMovies(appended.head, tail);
+            }
+            return new AppendedMovies(movies, new ArrayList<>(added));
+        }
+
+        @Override
+        public Movie get(int index) {
+            return index < head.size() ? head.get(index) : tail.get(index - head.size());
+        }
+
+        @Override
+        public int size() {
+            return head.size() + tail.size();
+        }
+    }
+}
@@ -2,44 +2,188 @@ package logic;
 
 import model.Movie;
 
-import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
 
 
+/**
+ * Reads the movies file: a "title, ID" line followed by a comma-separated
+ * genres line per movie, blank lines between records ignored.
+ *
+ * The file is memory-mapped and scanned byte by byte for line breaks, and
+ * a {@link FieldTokenizer} finds the fields; titles and IDs are decoded
+ * (UTF-8) straight from the trimmed slices, and genre names, which repeat on almost every record, are looked
+ * up by their bytes so each distinct one is decoded once. The accepted
+ * format is that of line.split(",") and trim(): trailing empty fields are
+ * dropped, and \n, \r and \r\n all end a line. Files larger than one mapping
+ * are read through consecutive windows.
+ */
 public class MovieFileParser {
 
+    // distinct genre names decoded once; past this many the rest are decoded per record
+    private static final int MAX_CACHED_GENRES = 4096;
+
+    private final int windowBytes;
+
+    public MovieFileParser() {
+        this(MappedLines.DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * @param windowBytes size of each file mapping; a line must fit in one
+     */
+    public MovieFileParser(int windowBytes) {
+        if (windowBytes < 2) {
+            throw new IllegalArgumentException("ERROR: Mapping window must be at least 2 bytes");
+        }
+        this.windowBytes = windowBytes;
+    }
+
     public List<Movie> readMovies(String filePath) throws Exception {
+        return readMovies(filePath, null);
+    }
+
+    // Same as readMovies, also assigning genre codes in the given dictionary (if not null)
+    public List<Movie> readMovies(String filePath, GenreDictionary genreDictionary) throws Exception {
+        return readMovies(filePath, genreDictionary, 0);
+    }
+
+    // Reads only the records from a byte offset on, e.g. the file size before titles were appended.
+    // The offset must fall on a record boundary.
+    public List<Movie> readMovies(String filePath, GenreDictionary genreDictionary, long fromOffset) throws Exception {
+        try (MappedLines lines = new MappedLines(Path.of(filePath), fromOffset, windowBytes)) {
+            return readMovies(lines, genreDictionary);
+        }
+    }
+
+    // Same as readMovies(filePath, genreDictionary), passing fileChecksum the CRC32C of the whole file,
+    // taken from the mapping the parse used
+    public List<Movie> readMovies(String filePath, GenreDictionary genreDictionary, LongConsumer fileChecksum)
+            throws Exception {
+        try (MappedLines lines = new MappedLines(Path.of(filePath), 0, windowBytes)) {
+            List<Movie> movies = readMovies(lines, genreDictionary);
+            CRC32C crc = new CRC32C();
+            lines.checksum(crc, 0, lines.size());
+            fileChecksum.accept(crc.getValue());
+            return movies;
+        }
+    }
+
+    private List<Movie> readMovies(MappedLines lines, GenreDictionary genreDictionary) throws Exception {
         List<Movie> movies = new ArrayList<>();
+        GenreNames genreNames = new GenreNames();
+        List<String> genres = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
+        while (lines.next()) {
+            if (lines.isBlank()) {
+                continue;
+            }
 
-            while ((line = br.readLine()) != null) {
-                if(line.trim().isEmpty()){
-                    continue;
+            //--- "title, ID": exactly two fields once trailing empty ones are dropped ---//
+            FieldTokenizer fields = lines.fields().dropTrailingEmpty();
+            String title = null, movieId = null;
+            if (fields.next()) {
+                title = lines.decode(fields.start, fields.end);
+                if (fields.next() && !fields.hasNext()) {
+                    movieId = lines.decode(fields.start, fields.end);
                 }
+            }
+            if (movieId == null) {
+                throw new Exception("ERROR: Wrong movie line format: " + lines.decode(lines.start, lines.end));
+            }
+
+            if (!lines.next()) {
+                throw new Exception("ERROR: Genres missing for movie: " + title);
+            }
 
-                String[] titleAndId = line.split(",");
-                if (titleAndId.length != 2) {
-                    throw new Exception("ERROR: Wrong movie line format: " + line);
+            //--- Genres: every field up to the last non-empty one, trimmed ---//
+            fields = lines.fields().dropTrailingEmpty();
+            genres.clear();
+            while (fields.next()) {
+                genres.add(genreNames.get(lines, fields.start, fields.end));
+            }
+            String[] movieGenres = genres.toArray(new String[0]);
+            if (genreDictionary != null) {
+                for (String genre : movieGenres) {
+                    genreDictionary.intern(genre);
                 }
+            }
 
-                String title = titleAndId[0].trim();
-                String movieId = titleAndId[1].trim();
+            movies.add(new Movie(title, movieId, movieGenres));
+        }
 
-                String genresLine = br.readLine();
-                if (genresLine == null) {
-                    throw new Exception("ERROR: Genres missing for movie: " + title);
-                }
+        return movies;
+    }
+
+    // Parses the movies file into an ID-indexed catalog
+    public MovieCatalog readCatalog(String filePath) throws Exception {
+        GenreDictionary genreDictionary = new GenreDictionary();
+        return MovieCatalog.of(readMovies(filePath, genreDictionary), genreDictionary);
+    }
 
-                String[] genres = Arrays.stream(genresLine.split(","))
-                        .map(String::trim)
-                        .toArray(String[]::new);
+    // Genre names keyed by their bytes (open addressing), so repeats are not decoded again
+    private static final class GenreNames {
+        private byte[][] keys = new byte[64][];
+        private String[] names = new String[64];
+        private int count;
 
-                movies.add(new Movie(title, movieId, genres));
+        String get(MappedLines lines, int from, int to) {
+            MappedByteBuffer buf = lines.buf;
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ buf.get(i)) * 0x01000193;
+            }
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            for (byte[] key; (key = keys[slot]) != null; slot = (slot + 1) & mask) {
+                if (sameBytes(buf, from, to, key)) {
+                    return names[slot];
+                }
             }
+            String name = lines.decode(from, to);
+            if (count < MAX_CACHED_GENRES) {
+                byte[] key = new byte[to - from];
+                buf.get(from, key);
+                keys[slot] = key;
+                names[slot] = name;
+                if (++count * 2 > keys.length) {
+                    grow();
+                }
+            }
+            return name;
         }
 
-        return movies;
+        private static boolean sameBytes(MappedByteBuffer buf, int from, int to, byte[] key) {
+            if (key.length != to - from) return false;
+            for (int i = 0; i < key.length; i++) {
+                if (buf.get(from + i) != key[i]) return false;
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldNames = names;
+            keys = new byte[oldKeys.length << 1][];
+            names = new String[oldKeys.length << 1];
+            int mask = keys.length - 1;
+            for (int s = 0; s < oldKeys.length; s++) {
+                byte[] key = oldKeys[s];
+                if (key == null) continue;
+                int hash = 0x811C9DC5;
+                for (byte b : key) {
+                    hash = (hash ^ b) * 0x01000193;
+                }
+                int slot = hash & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                names[slot] = oldNames[s];
+            }
+        }
     }
 }
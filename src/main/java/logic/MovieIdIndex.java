@@ -0,0 +1,100 @@
+package logic;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Movie ID dictionary keyed by the IDs' UTF-8 bytes, so a parser can
+ * resolve an ID straight from a buffer slice without making a String.
+ *
+ * The distinct IDs are packed into one byte blob with an offset per ID,
+ * and an open-addressing table (load at most 1/2) maps an ID's hash to its
+ * first ordinal; the other ordinals sharing it follow through
+ * {@link MovieCatalog#nextWithSameId(int)}.
+ *
+ * Immutable once built; safe to share between threads.
+ */
+final class MovieIdIndex {
+
+    private final byte[] blob;
+    // per slot: first ordinal of the ID, or -1
+    private final int[] slots;
+    // per ordinal: where its ID starts in the blob and its length (only first ordinals are set)
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private MovieIdIndex(byte[] blob, int[] slots, int[] offsets, int[] lengths) {
+        this.blob = blob;
+        this.slots = slots;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    static MovieIdIndex build(MovieCatalog catalog) {
+        int size = catalog.size();
+        int[] offsets = new int[size];
+        int[] lengths = new int[size];
+        int capacity = Integer.highestOneBit(Math.max(2, size * 2 - 1)) << 1;
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+
+        byte[] blob = new byte[Math.max(16, size * 8)];
+        int used = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            String movieId = catalog.id(ordinal);
+            if (movieId == null || catalog.ordinalOf(movieId) != ordinal) continue;
+
+            byte[] id = movieId.getBytes(StandardCharsets.UTF_8);
+            if (used + id.length > blob.length) {
+                blob = Arrays.copyOf(blob, Math.max(blob.length * 2, used + id.length));
+            }
+            System.arraycopy(id, 0, blob, used, id.length);
+            offsets[ordinal] = used;
+            lengths[ordinal] = id.length;
+            used += id.length;
+
+            int slot = hash(blob, offsets[ordinal], id.length) & (capacity - 1);
+            while (slots[slot] >= 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slots[slot] = ordinal;
+        }
+        return new MovieIdIndex(Arrays.copyOf(blob, used), slots, offsets, lengths);
+    }
+
+    /**
+     * @return the first ordinal carrying the ID in buf[from, to), or -1 if unknown
+     */
+    int lookup(ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        int hash = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ buf.get(i)) * 0x01000193;
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] >= 0; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot];
+            if (lengths[ordinal] == length && sameBytes(buf, from, offsets[ordinal], length)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameBytes(ByteBuffer buf, int from, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buf.get(from + i) != blob[offset + i]) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a, as used for the byte-keyed lookups of the parsers
+    private static int hash(byte[] bytes, int from, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = from; i < from + length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash;
+    }
+}
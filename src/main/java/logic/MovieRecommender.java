@@ -0,0 +1,16 @@
+package logic;
+
+/**
+ * A recommendation model that ranks catalog ordinals for one user.
+ * Implementations plug into {@link RecommendationBatch#recommender} and must
+ * be safe to call from several batch threads at once.
+ */
+public interface MovieRecommender {
+
+    /**
+     * @param watchedOrdinals the user's watched movies as catalog ordinals
+     * @param k               maximum number of results
+     * @return recommended ordinals, best first, none of them watched
+     */
+    int[] recommend(CompressedBitmap watchedOrdinals, int k);
+}
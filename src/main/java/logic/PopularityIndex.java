@@ -0,0 +1,243 @@
+package logic;
+
+import model.User;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Movies ranked by how many parsed users watched them, computed once.
+ *
+ * Holds a global ranking (watch count descending, catalog order on ties)
+ * and the same ranking restricted to each genre, in CSR layout. Short or
+ * empty recommendation lists are topped up by walking these rankings, so the
+ * cost grows with K and the user's own lists, never with the catalog size.
+ */
+public final class PopularityIndex {
+
+    private final MovieCatalog catalog;
+    private final int[] watchCounts;
+    // every ordinal, most watched first
+    private final int[] ranked;
+    // per genre code: its movies, most watched first
+    private final int[] genreOffsets;
+    private final int[] genreRanked;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private PopularityIndex(MovieCatalog catalog, int[] watchCounts, int[] ranked,
+                            int[] genreOffsets, int[] genreRanked) {
+        this.catalog = catalog;
+        this.watchCounts = watchCounts;
+        this.ranked = ranked;
+        this.genreOffsets = genreOffsets;
+        this.genreRanked = genreRanked;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(catalog.size()));
+    }
+
+    /**
+     * Counts the watchers of every catalog movie and ranks them.
+     *
+     * @param catalog the movie catalog resolving watched IDs
+     * @param users   the parsed users; null entries are skipped
+     * @return the index
+     */
+    public static PopularityIndex build(MovieCatalog catalog, List<User> users) {
+        int[] watchCounts = new int[catalog.size()];
+        if (users != null) {
+            for (User user : users) {
+                if (user == null || user.watchedMovies() == null) continue;
+                catalog.ordinalsOf(user.watchedMovies()).forEach(ordinal -> watchCounts[ordinal]++);
+            }
+        }
+        return fromCounts(catalog, watchCounts);
+    }
+
+    /**
+     * Ranks movies by watcher counts taken elsewhere, e.g. by
+     * {@link CatalogUserParser#countWatchers} or from a
+     * {@link CatalogSnapshot}.
+     *
+     * @param catalog     the movie catalog
+     * @param watchCounts watchers per ordinal, catalog.size() entries; kept, not copied
+     * @return the index
+     */
+    public static PopularityIndex fromCounts(MovieCatalog catalog, int[] watchCounts) {
+        int movieCount = catalog.size();
+        if (watchCounts.length != movieCount) {
+            throw new IllegalArgumentException("ERROR: Expected " + movieCount + " watch counts, got "
+                    + watchCounts.length);
+        }
+
+        //--- Global ranking: sort (inverted count, ordinal) keys ---//
+        long[] keys = new long[movieCount];
+        for (int m = 0; m < movieCount; m++) {
+            keys[m] = ((long) (Integer.MAX_VALUE - watchCounts[m]) << 32) | m;
+        }
+        Arrays.sort(keys);
+        int[] ranked = new int[movieCount];
+        for (int i = 0; i < movieCount; i++) {
+            ranked[i] = (int) keys[i];
+        }
+
+        //--- Per-genre rankings: distribute the global ranking by genre ---//
+        int genreCount = catalog.genres().size();
+        int maskWords = catalog.maskWords();
+        long[] masks = catalog.genreMaskColumn();
+        int[] genreOffsets = new int[genreCount + 1];
+        for (int m = 0; m < movieCount; m++) {
+            for (int w = 0; w < maskWords; w++) {
+                for (long bits = masks[m * maskWords + w]; bits != 0; bits &= bits - 1) {
+                    genreOffsets[(w << 6) + Long.numberOfTrailingZeros(bits) + 1]++;
+                }
+            }
+        }
+        for (int g = 0; g < genreCount; g++) {
+            genreOffsets[g + 1] += genreOffsets[g];
+        }
+        int[] genreRanked = new int[genreOffsets[genreCount]];
+        int[] fill = new int[genreCount];
+        for (int ordinal : ranked) {
+            for (int w = 0; w < maskWords; w++) {
+                for (long bits = masks[ordinal * maskWords + w]; bits != 0; bits &= bits - 1) {
+                    int genre = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    genreRanked[genreOffsets[genre] + fill[genre]++] = ordinal;
+                }
+            }
+        }
+
+        return new PopularityIndex(catalog, watchCounts, ranked, genreOffsets, genreRanked);
+    }
+
+    public int watchCount(int ordinal) {
+        return watchCounts[ordinal];
+    }
+
+    /**
+     * @return the k most watched movies, most watched first
+     */
+    public int[] mostPopular(int k) {
+        return Arrays.copyOf(ranked, Math.max(0, Math.min(k, ranked.length)));
+    }
+
+    /**
+     * @return the k most watched movies of a genre, most watched first
+     */
+    public int[] mostPopular(int genreCode, int k) {
+        int from = genreOffsets[genreCode];
+        return Arrays.copyOfRange(genreRanked, from, from + Math.max(0, Math.min(k, genreOffsets[genreCode + 1] - from)));
+    }
+
+    // Position-based access to the global ranking, for scorers
+    int rankedCount() {
+        return ranked.length;
+    }
+
+    int rankedAt(int rank) {
+        return ranked[rank];
+    }
+
+    /**
+     * Fills a recommendation list up to k entries with popular movies the
+     * user has not watched and whose title is not already in the list. Movies of
+     * the liked genres come first, most watched across those genres first,
+     * then the global ranking.
+     *
+     * @param recommended the ordinals recommended so far, kept in front
+     * @param watched     the user's watched ordinals
+     * @param likedGenres the user's liked-genre mask, or null to skip the genre stage
+     * @param k           the target length
+     * @return recommended itself if already long enough, else the topped-up list
+     */
+    public int[] topUp(int[] recommended, CompressedBitmap watched, long[] likedGenres, int k) {
+        if (recommended.length >= k) {
+            return recommended;
+        }
+        Scratch s = scratch.get();
+        s.nextStamp();
+        int[] out = Arrays.copyOf(recommended, Math.min(k, catalog.size()));
+        int size = recommended.length;
+        for (int ordinal : recommended) {
+            s.seen[catalog.firstWithSameTitle(ordinal)] = s.stamp;
+        }
+
+        //--- Liked genres: merge their rankings by watch count ---//
+        if (likedGenres != null) {
+            s.heads.clear();
+            for (int w = 0; w < likedGenres.length; w++) {
+                for (long bits = likedGenres[w]; bits != 0; bits &= bits - 1) {
+                    int genre = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (genre < genreOffsets.length - 1) {
+                        s.heads.add(genre);
+                    }
+                }
+            }
+            int genres = s.heads.size();
+            if (s.cursors.length < genres) {
+                s.cursors = new int[genres];
+            }
+            for (int g = 0; g < genres; g++) {
+                s.cursors[g] = genreOffsets[s.heads.get(g)];
+            }
+            while (size < out.length) {
+                int best = -1;
+                for (int g = 0; g < genres; g++) {
+                    int genre = s.heads.get(g);
+                    int cursor = s.cursors[g];
+                    // skip entries already taken through another genre or watched
+                    while (cursor < genreOffsets[genre + 1] && !available(s, watched, genreRanked[cursor])) {
+                        cursor++;
+                    }
+                    s.cursors[g] = cursor;
+                    if (cursor < genreOffsets[genre + 1]
+                            && (best < 0 || before(genreRanked[cursor], genreRanked[s.cursors[best]]))) {
+                        best = g;
+                    }
+                }
+                if (best < 0) break;
+                int ordinal = genreRanked[s.cursors[best]++];
+                s.seen[catalog.firstWithSameTitle(ordinal)] = s.stamp;
+                out[size++] = ordinal;
+            }
+        }
+
+        //--- Global ranking ---//
+        for (int i = 0; i < ranked.length && size < out.length; i++) {
+            int ordinal = ranked[i];
+            if (available(s, watched, ordinal)) {
+                s.seen[catalog.firstWithSameTitle(ordinal)] = s.stamp;
+                out[size++] = ordinal;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    // Marks are kept per title (its first ordinal), so a title is listed once
+    private boolean available(Scratch s, CompressedBitmap watched, int ordinal) {
+        return s.seen[catalog.firstWithSameTitle(ordinal)] != s.stamp && !watched.contains(ordinal);
+    }
+
+    // Global ranking order: more watched first, then catalog order
+    private boolean before(int a, int b) {
+        return watchCounts[a] != watchCounts[b] ? watchCounts[a] > watchCounts[b] : a < b;
+    }
+
+    // Per-thread buffers: a stamp per movie marks the ones already in the list
+    private static final class Scratch {
+        final int[] seen;
+        final IntList heads = new IntList(8);
+        int[] cursors = new int[8];
+        int stamp;
+
+        Scratch(int movieCount) {
+            seen = new int[movieCount];
+        }
+
+        void nextStamp() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package logic;
+
+/**
+ * Scores the most watched unwatched movies by their watch count relative to
+ * the most watched movie, so scores fall in [0, 1].
+ */
+public final class PopularityScorer implements Scorer {
+
+    private final PopularityIndex popularity;
+    private final int depth;
+
+    /**
+     * @param popularity the precomputed ranking
+     * @param depth      how many unwatched movies to score, from the top
+     */
+    public PopularityScorer(PopularityIndex popularity, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("ERROR: Popularity depth must be at least 1: " + depth);
+        }
+        this.popularity = popularity;
+        this.depth = depth;
+    }
+
+    @Override
+    public void score(ScoringContext context) {
+        if (popularity.rankedCount() == 0) return;
+        int max = popularity.watchCount(popularity.rankedAt(0));
+        if (max == 0) return;
+
+        CompressedBitmap watched = context.watched();
+        int scored = 0;
+        for (int rank = 0; rank < popularity.rankedCount() && scored < depth; rank++) {
+            int ordinal = popularity.rankedAt(rank);
+            int count = popularity.watchCount(ordinal);
+            if (count == 0) break;
+            if (watched.contains(ordinal)) continue;
+            context.add(ordinal, (float) count / max);
+            scored++;
+        }
+    }
+}
@@ -3,74 +3,264 @@ package logic;
 import model.Movie;
 import model.User;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
 
 public class Recommendation {
     
+    private static final int DEFAULT_PROFILE_CACHE_SIZE = 4096;
+    
     // --- Recommendation method ---//
     public static Set<String> recommendMovies(Set<String> watchedMovies, List<Movie> movies) {
         if (watchedMovies == null || watchedMovies.isEmpty() || movies == null || movies.isEmpty()) {
             return new HashSet<>();
         }
         
-        Set<String> likedGenres = new HashSet<>();
-        for (Movie movie : movies) {
-            if (watchedMovies.contains(movie.id())) {
-                likedGenres.addAll(List.of(movie.genres()));
-            }
+        return recommendMovies(MovieCatalog.of(movies), watchedMovies);
+    }
+    
+    // --- Recommendation method over a prebuilt catalog ---//
+    // Liked genres come from ID lookups, so the cost is O(|watched|), not O(|catalog|).
+    // The catalog comes first so calls passing a null literal stay unambiguous.
+    public static Set<String> recommendMovies(MovieCatalog catalog, Set<String> watchedMovies) {
+        return recommendMovies(catalog, watchedMovies, null);
+    }
+    
+    // --- Recommendation method sharing candidates between users with the same liked genres ---//
+    public static Set<String> recommendMovies(MovieCatalog catalog, Set<String> watchedMovies,
+                                              GenreProfileCache cache) {
+        if (watchedMovies == null || watchedMovies.isEmpty() || catalog == null || catalog.isEmpty()) {
+            return new HashSet<>();
         }
         
-        return getRecommendations(movies, watchedMovies, likedGenres);
+        CompressedBitmap watchedOrdinals = catalog.ordinalsOf(watchedMovies);
+        long[] likedGenres = catalog.newGenreMask();
+        watchedOrdinals.forEach(ordinal -> catalog.orGenreMask(ordinal, likedGenres));
+        
+        return getRecommendations(catalog, cache, watchedOrdinals, likedGenres);
     }
     
-    // --- Output generation method ---//
-    public static void generateRecommendationsFile(List<User> users, List<Movie> movies) {
-        Path outPath = Path.of("recommendations.txt");
-        try (BufferedWriter writer = Files.newBufferedWriter(outPath,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            
-            if (users == null) return;
-            
-            for (User u : users) {
-                if (u == null) continue;
-                
-                if (u.watchedMovies() != null && !u.watchedMovies().isEmpty()) {
-                    Set<String> recommendedMovies = recommendMovies(u.watchedMovies(), movies);
-                    
-                    writer.write(u.name() + "," + u.id());
-                    writer.newLine();
-                    
-                    String joined = String.join(",", recommendedMovies);
-                    writer.write(joined);
-                    writer.newLine();
+    // --- Ranked top-K recommendation method ---//
+    // Candidates are scored by their shared liked genres, each genre weighted by
+    // how many watched movies carry it; titles come back best first.
+    public static List<String> recommendTopMovies(MovieCatalog catalog, Set<String> watchedMovies, int k) {
+        return recommendTopMovies(catalog, watchedMovies, k, null);
+    }
+    
+    public static List<String> recommendTopMovies(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                                  GenreProfileCache cache) {
+        return recommendTopMovies(catalog, watchedMovies, k, cache, null);
+    }
+    
+    // --- Ranked top-K recommendation method, topping short lists up with popular movies ---//
+    public static List<String> recommendTopMovies(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                                  GenreProfileCache cache, PopularityIndex popularity) {
+        return recommendTopMovies(catalog, watchedMovies, k, cache, popularity, null);
+    }
+    
+    // --- Ranked top-K recommendation method with optional diversity re-ranking ---//
+    public static List<String> recommendTopMovies(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                                  GenreProfileCache cache, PopularityIndex popularity,
+                                                  DiversityReranker diversity) {
+        int[] ordinals = recommendTopOrdinals(catalog, watchedMovies, k, cache, popularity, diversity);
+        List<String> titles = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            titles.add(catalog.title(ordinal));
+        }
+        return titles;
+    }
+    
+    public static int[] recommendTopOrdinals(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                             GenreProfileCache cache) {
+        return recommendTopOrdinals(catalog, watchedMovies, k, cache, null);
+    }
+    
+    public static int[] recommendTopOrdinals(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                             GenreProfileCache cache, PopularityIndex popularity) {
+        return recommendTopOrdinals(catalog, watchedMovies, k, cache, popularity, null);
+    }
+    
+    // With a reranker, a larger pool is scored and K of it picked for relevance and genre variety
+    public static int[] recommendTopOrdinals(MovieCatalog catalog, Set<String> watchedMovies, int k,
+                                             GenreProfileCache cache, PopularityIndex popularity,
+                                             DiversityReranker diversity) {
+        if (k <= 0 || watchedMovies == null || watchedMovies.isEmpty() || catalog == null || catalog.isEmpty()) {
+            return new int[0];
+        }
+        
+        return rankWatched(catalog, catalog.ordinalsOf(watchedMovies), k, cache, popularity, diversity);
+    }
+    
+    // --- Ranked top-K over watched ordinals, e.g. from CatalogUserParser: no ID lookups ---//
+    // An empty bitmap (every watched ID unknown) still gets the popularity top-up.
+    public static int[] rankWatched(MovieCatalog catalog, CompressedBitmap watchedOrdinals, int k,
+                                    GenreProfileCache cache, PopularityIndex popularity,
+                                    DiversityReranker diversity) {
+        if (k <= 0 || watchedOrdinals == null || catalog == null || catalog.isEmpty()) {
+            return new int[0];
+        }
+        
+        long[] likedGenres = catalog.newGenreMask();
+        int[] genreWeights = new int[catalog.maskWords() << 6];
+        watchedOrdinals.forEach(ordinal -> {
+            catalog.orGenreMask(ordinal, likedGenres);
+            catalog.countGenres(ordinal, genreWeights);
+        });
+        
+        TopKHeap heap = new TopKHeap(diversity != null ? diversity.poolSize(k) : k);
+        IntConsumer offer = ordinal -> heap.offer(catalog.genreWeight(ordinal, genreWeights), ordinal);
+        if (catalog.hasDuplicateTitles()) {
+            // a title carried by several movies competes once, through its best-scored movie (the
+            // lowest ordinal on ties; candidates come in catalog order), as in the title set of recommendMovies
+            Map<Integer, Integer> bestByTitle = new HashMap<>();
+            visitCandidates(catalog, cache, watchedOrdinals, likedGenres,
+                    ordinal -> bestByTitle.merge(catalog.firstWithSameTitle(ordinal), ordinal,
+                            (kept, next) -> catalog.genreWeight(next, genreWeights)
+                                    > catalog.genreWeight(kept, genreWeights) ? next : kept));
+            bestByTitle.values().forEach(offer::accept);
+        } else {
+            visitCandidates(catalog, cache, watchedOrdinals, likedGenres, offer);
+        }
+        int[] ordinals;
+        if (diversity != null) {
+            int count = heap.size();
+            int[] pool = new int[count];
+            int[] poolScores = new int[count];
+            heap.drain(pool, poolScores);
+            float[] scores = new float[count];
+            for (int i = 0; i < count; i++) {
+                scores[i] = poolScores[i];
+            }
+            ordinals = diversity.rerank(pool, scores, count, k);
+        } else {
+            ordinals = heap.drainOrdinals();
+        }
+        // every liked-genre movie is already a candidate, so only the global ranking can add more
+        return popularity != null ? popularity.topUp(ordinals, watchedOrdinals, null, k) : ordinals;
+    }
+    
+    // --- Provenance: which watched movie explains each recommendation ---//
+    // Entry i is the watched ordinal sharing the most genres with recommended[i]
+    // (the lowest ordinal on ties), or -1 if none shares a genre.
+    public static int[] becauseWatched(MovieCatalog catalog, CompressedBitmap watchedOrdinals, int[] recommended) {
+        int[] watched = watchedOrdinals.toArray();
+        int[] because = new int[recommended.length];
+        long[] masks = catalog.genreMaskColumn();
+        int words = catalog.maskWords();
+        for (int i = 0; i < recommended.length; i++) {
+            int base = recommended[i] * words;
+            int best = -1;
+            int bestShared = 0;
+            for (int w : watched) {
+                int shared = 0;
+                for (int word = 0; word < words; word++) {
+                    shared += Long.bitCount(masks[base + word] & masks[w * words + word]);
+                }
+                if (shared > bestShared) {
+                    bestShared = shared;
+                    best = w;
                 }
             }
+            because[i] = best;
+        }
+        return because;
+    }
+    
+    // --- Output generation method ---//
+    public static void generateRecommendationsFile(List<User> users, List<Movie> movies) {
+        generateRecommendationsFile(MovieCatalog.of(movies), users);
+    }
+    
+    public static void generateRecommendationsFile(MovieCatalog catalog, List<User> users) {
+        try {
+            new RecommendationBatch(catalog).run(users, Path.of("recommendations.txt"));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+    
+    // --- Parallel output generation, reporting throughput ---//
+    public static void generateRecommendationsFile(MovieCatalog catalog, List<User> users,
+                                                   RecommendationBatch.Mode mode, int parallelism) {
+        try {
+            GenreProfileCache cache = new GenreProfileCache(catalog, DEFAULT_PROFILE_CACHE_SIZE);
+            RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog, mode, parallelism)
+                    .profileCache(cache)
+                    .run(users, Path.of("recommendations.txt"));
+            System.out.println(stats);
+            System.out.println(cache);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+    
+    // --- Parallel output generation over a lazily read user stream ---//
+    // Users are pulled a window at a time; exceptions thrown by the stream propagate to the caller.
+    public static void generateRecommendationsFile(MovieCatalog catalog, Stream<User> users,
+                                                   RecommendationBatch.Mode mode, int parallelism) {
+        try {
+            GenreProfileCache cache = new GenreProfileCache(catalog, DEFAULT_PROFILE_CACHE_SIZE);
+            RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog, mode, parallelism)
+                    .profileCache(cache)
+                    .runStreaming(users, Path.of("recommendations.txt"));
+            System.out.println(stats);
+            System.out.println(cache);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+    
+    // --- Parallel output generation over users already resolved to ordinals, e.g. from a snapshot ---//
+    // Users left with no recommendation get popular movies instead, if a popularity index is given.
+    public static void generateResolvedRecommendationsFile(MovieCatalog catalog, Stream<ResolvedUser> users,
+                                                           PopularityIndex popularity,
+                                                           RecommendationBatch.Mode mode, int parallelism) {
+        try {
+            GenreProfileCache cache = new GenreProfileCache(catalog, DEFAULT_PROFILE_CACHE_SIZE);
+            RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog, mode, parallelism)
+                    .profileCache(cache)
+                    .popularityFallback(popularity)
+                    .runResolvedStreaming(users, Path.of("recommendations.txt"));
+            System.out.println(stats);
+            System.out.println(cache);
         } catch (IOException e) {
             System.out.println(e.getMessage());
         }
     }
     
     //--- Helper method to get recommendations ---//
-    private static Set<String> getRecommendations(List<Movie> movies, Set<String> watchedSet, Set<String> likedGenres) {
+    private static Set<String> getRecommendations(MovieCatalog catalog, GenreProfileCache cache,
+                                                  CompressedBitmap watchedOrdinals, long[] likedGenres) {
         Set<String> recommendations = new HashSet<>();
-        
-        for (Movie movie : movies) {
-            if (!watchedSet.contains(movie.id())) {
-                for (String genre : movie.genres()) {
-                    if (likedGenres.contains(genre)) {
-                        recommendations.add(movie.title());
-                        break;
-                    }
-                }
+        visitCandidates(catalog, cache, watchedOrdinals, likedGenres,
+                ordinal -> recommendations.add(catalog.title(ordinal)));
+        return recommendations;
+    }
+    
+    //--- Helper method visiting each unwatched movie sharing a liked genre once ---//
+    private static void visitCandidates(MovieCatalog catalog, GenreProfileCache cache,
+                                        CompressedBitmap watchedOrdinals, long[] likedGenres, IntConsumer action) {
+        CompressedBitmap candidates = cache != null ? cache.candidates(likedGenres) : candidates(catalog, likedGenres);
+        candidates.andNot(watchedOrdinals).forEach(action);
+    }
+    
+    //--- Helper method: union of the liked genres' posting bitmaps ---//
+    static CompressedBitmap candidates(MovieCatalog catalog, long[] likedGenres) {
+        GenreIndex genreIndex = catalog.genreIndex();
+        List<CompressedBitmap> postings = new ArrayList<>();
+        for (int w = 0; w < likedGenres.length; w++) {
+            for (long bits = likedGenres[w]; bits != 0; bits &= bits - 1) {
+                postings.add(genreIndex.postings((w << 6) + Long.numberOfTrailingZeros(bits)));
             }
         }
-        return recommendations;
+        return CompressedBitmap.orAll(postings);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,445 @@
+package logic;
+
+import model.User;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Batch engine behind {@link Recommendation#generateRecommendationsFile}.
+ *
+ * Users are processed in windows: every user of a window is computed (in
+ * parallel for {@link Mode#FORK_JOIN}) into its own output slot, then the
+ * window is written in the original user order. The output is therefore
+ * byte-identical whatever the mode or parallelism, and memory stays bounded
+ * by the window size; {@link #runStreaming} also reads the users a window at
+ * a time. {@link ResolvedUser}s, whose watched movies are already ordinals,
+ * go through the same engine via {@link #runResolved} and
+ * {@link #runResolvedStreaming}.
+ *
+ * Without a limit every recommended title is streamed into the user's block
+ * in catalog order through a {@link RecommendationCursor}. With
+ * {@link #topK(int)} set, each user gets at most K titles ranked by
+ * genre-overlap score instead. {@link #popularityFallback} tops short
+ * ranked lists up to K, and fills empty unbounded ones.
+ *
+ * {@link Mode#VIRTUAL_THREADS} runs one virtual thread per chunk of
+ * users, meant for per-user work that blocks; there the parallelism is the
+ * maximum number of chunks, and so of users, in flight, enforced with a
+ * semaphore. A chunk's users run one after another on its thread, so the
+ * recommenders' per-thread scratch is allocated once per chunk, not once
+ * per user.
+ */
+public class RecommendationBatch {
+
+    public enum Mode {
+        SEQUENTIAL,
+        FORK_JOIN,
+        VIRTUAL_THREADS
+    }
+
+    private static final int WINDOW_SIZE = 8192;
+    // titles given to a user whose unbounded list is empty, when a popularity fallback is set
+    static final int DEFAULT_EMPTY_FALLBACK = 10;
+    // below this many users a fork/join task computes its range directly
+    private static final int SPLIT_THRESHOLD = 64;
+    // most users one virtual thread computes; fewer when that would leave permits idle
+    private static final int VIRTUAL_CHUNK = 256;
+
+    private final MovieCatalog catalog;
+    private final Mode mode;
+    private final int parallelism;
+    private int topK;
+    private GenreProfileCache profileCache;
+    private MovieRecommender recommender;
+    private PopularityIndex popularity;
+    private int emptyFallback;
+    private DiversityReranker diversity;
+    private boolean explain;
+
+    public RecommendationBatch(MovieCatalog catalog) {
+        this(catalog, Mode.SEQUENTIAL, 1);
+    }
+
+    public RecommendationBatch(MovieCatalog catalog, Mode mode, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("ERROR: Parallelism must be at least 1: " + parallelism);
+        }
+        this.catalog = catalog;
+        this.mode = mode;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Limits every user's output to the K best-scored titles, in score order.
+     *
+     * @param k the limit; 0 restores the unbounded output
+     * @return this batch
+     */
+    public RecommendationBatch topK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("ERROR: Top-K must not be negative: " + k);
+        }
+        this.topK = k;
+        return this;
+    }
+
+    /**
+     * Shares candidate lists between users with the same liked genres.
+     *
+     * @param cache the cache to use (built over this batch's catalog), or null for none
+     * @return this batch
+     */
+    public RecommendationBatch profileCache(GenreProfileCache cache) {
+        this.profileCache = cache;
+        return this;
+    }
+
+    /**
+     * Replaces the genre-overlap rule with another model. Its results are
+     * written best first, cut at the top-K limit when one is set.
+     *
+     * @param recommender the model, or null for genre overlap
+     * @return this batch
+     */
+    public RecommendationBatch recommender(MovieRecommender recommender) {
+        this.recommender = recommender;
+        return this;
+    }
+
+    /**
+     * Tops up lists shorter than the top-K limit with popular movies, e.g.
+     * for users whose watched IDs are unknown or share no genre with anything
+     * unwatched. Without a limit, a user whose list comes out empty gets the
+     * {@value #DEFAULT_EMPTY_FALLBACK} most watched movies they have not seen.
+     *
+     * @param popularity the ranking to draw from, or null for no fallback
+     * @return this batch
+     */
+    public RecommendationBatch popularityFallback(PopularityIndex popularity) {
+        return popularityFallback(popularity, DEFAULT_EMPTY_FALLBACK);
+    }
+
+    /**
+     * Same as {@link #popularityFallback(PopularityIndex)}, choosing how many
+     * popular movies fill an empty unbounded list.
+     *
+     * @param popularity    the ranking to draw from, or null for no fallback
+     * @param emptyFallback titles for an empty unbounded list; 0 leaves it empty
+     * @return this batch
+     */
+    public RecommendationBatch popularityFallback(PopularityIndex popularity, int emptyFallback) {
+        if (emptyFallback < 0) {
+            throw new IllegalArgumentException("ERROR: Fallback size must not be negative: " + emptyFallback);
+        }
+        this.popularity = popularity;
+        this.emptyFallback = emptyFallback;
+        return this;
+    }
+
+    /**
+     * Re-ranks each top-K list for genre variety. Applies to the genre rule;
+     * a {@link Blender} model takes its own reranker. Has no effect on the
+     * unbounded output.
+     *
+     * @param diversity the reranker, or null to keep the score order
+     * @return this batch
+     */
+    public RecommendationBatch diversity(DiversityReranker diversity) {
+        this.diversity = diversity;
+        return this;
+    }
+
+    /**
+     * Adds a "because you watched" line under each ranked list: position i
+     * holds the watched title sharing the most genres with recommendation i,
+     * or nothing when none shares a genre (e.g. a popularity top-up). Needs
+     * ranked output (top-K or a model); the unbounded list is written
+     * without it.
+     *
+     * @param explain true to write the provenance line
+     * @return this batch
+     */
+    public RecommendationBatch explain(boolean explain) {
+        this.explain = explain;
+        return this;
+    }
+
+    /**
+     * Computes and writes recommendations for every user.
+     * Users that are null or have no watched movies are skipped, as before.
+     *
+     * @param users   the users in output order (null writes an empty file)
+     * @param outPath the output file, created or truncated
+     * @return counters and timing for the run
+     * @throws IOException if writing fails
+     */
+    public BatchStats run(List<User> users, Path outPath) throws IOException {
+        return run(users == null ? Collections.emptyIterator() : users.iterator(), outPath, this::formatUser);
+    }
+
+    /**
+     * Same as {@link #run(List, Path)}, pulling users from the stream one
+     * window at a time, so only a window of users is held at once. An
+     * exception thrown by the stream (e.g. a malformed record) ends the run
+     * with the earlier windows already written; the stream is not closed.
+     *
+     * @param users   the users in output order
+     * @param outPath the output file, created or truncated
+     * @return counters and timing for the run
+     * @throws IOException if writing fails
+     */
+    public BatchStats runStreaming(Stream<User> users, Path outPath) throws IOException {
+        return run(users.iterator(), outPath, this::formatUser);
+    }
+
+    /**
+     * Same as {@link #run(List, Path)} for users whose watched movies are
+     * already ordinals, e.g. from {@link CatalogUserParser} or a
+     * {@link CatalogSnapshot}: they are scored without any ID lookup. A user
+     * that listed no watched IDs is skipped; one whose IDs are all unknown
+     * gets an entry, as with {@link User}s.
+     *
+     * @param users   the users in output order (null writes an empty file)
+     * @param outPath the output file, created or truncated
+     * @return counters and timing for the run
+     * @throws IOException if writing fails
+     */
+    public BatchStats runResolved(List<ResolvedUser> users, Path outPath) throws IOException {
+        return run(users == null ? Collections.emptyIterator() : users.iterator(), outPath, this::formatUser);
+    }
+
+    /**
+     * Same as {@link #runStreaming}, for resolved users.
+     *
+     * @param users   the users in output order
+     * @param outPath the output file, created or truncated
+     * @return counters and timing for the run
+     * @throws IOException if writing fails
+     */
+    public BatchStats runResolvedStreaming(Stream<ResolvedUser> users, Path outPath) throws IOException {
+        return run(users.iterator(), outPath, this::formatUser);
+    }
+
+    private <U> BatchStats run(Iterator<U> users, Path outPath, Function<U, String> format) throws IOException {
+        long start = System.nanoTime();
+        int read = 0;
+        int written = 0;
+
+        ForkJoinPool pool = mode == Mode.FORK_JOIN ? new ForkJoinPool(parallelism) : null;
+        ExecutorService virtualThreads = mode == Mode.VIRTUAL_THREADS
+                ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        Semaphore inFlight = new Semaphore(parallelism);
+        try (BufferedWriter writer = Files.newBufferedWriter(outPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            List<U> window = new ArrayList<>();
+            String[] blocks = new String[0];
+            while (users.hasNext()) {
+                window.clear();
+                while (window.size() < WINDOW_SIZE && users.hasNext()) {
+                    window.add(users.next());
+                }
+                int size = window.size();
+                read += size;
+                if (blocks.length < size) {
+                    blocks = new String[size];
+                }
+
+                if (pool != null) {
+                    pool.invoke(new RangeTask<>(window, format, blocks, 0, size));
+                } else if (virtualThreads != null) {
+                    computeOnVirtualThreads(virtualThreads, inFlight, parallelism, window, format, blocks);
+                } else {
+                    computeRange(window, format, blocks, 0, size);
+                }
+
+                // Write back in user order
+                for (int i = 0; i < size; i++) {
+                    if (blocks[i] != null) {
+                        writer.write(blocks[i]);
+                        blocks[i] = null;
+                        written++;
+                    }
+                }
+            }
+            return new BatchStats(read, written, System.nanoTime() - start);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            if (virtualThreads != null) {
+                virtualThreads.close();
+            }
+        }
+    }
+
+    //--- Per-user work ---//
+    private static <U> void computeRange(List<U> window, Function<U, String> format, String[] blocks,
+                                         int from, int to) {
+        for (int i = from; i < to; i++) {
+            blocks[i] = format.apply(window.get(i));
+        }
+    }
+
+    // One virtual thread per chunk of users; the semaphore caps how many exist at once
+    private static <U> void computeOnVirtualThreads(ExecutorService executor, Semaphore inFlight, int permits,
+                                                    List<U> window, Function<U, String> format, String[] blocks)
+            throws IOException {
+        int size = window.size();
+        int chunk = Math.max(1, Math.min(VIRTUAL_CHUNK, (size + permits - 1) / permits));
+        List<Future<?>> futures = new ArrayList<>((size + chunk - 1) / chunk);
+        try {
+            for (int from = 0; from < size; from += chunk) {
+                int start = from;
+                int end = Math.min(size, from + chunk);
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        computeRange(window, format, blocks, start, end);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("ERROR: Recommendation batch interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Output block for one user, or null if the user is skipped
+    private String formatUser(User u) {
+        if (u == null || u.watchedMovies() == null || u.watchedMovies().isEmpty()) {
+            return null;
+        }
+        return formatUser(u.name(), u.id(), catalog.ordinalsOf(u.watchedMovies()));
+    }
+
+    private String formatUser(ResolvedUser u) {
+        if (u == null || u.watchedNothing()) {
+            return null;
+        }
+        return formatUser(u.name(), u.id(), u.watchedOrdinals());
+    }
+
+    private String formatUser(String name, String id, CompressedBitmap watched) {
+        int[] ordinals;
+        if (recommender != null) {
+            ordinals = recommender.recommend(watched, topK > 0 ? topK : catalog.size());
+            if (popularity != null && topK > 0 && ordinals.length < topK) {
+                long[] likedGenres = catalog.newGenreMask();
+                watched.forEach(ordinal -> catalog.orGenreMask(ordinal, likedGenres));
+                ordinals = popularity.topUp(ordinals, watched, likedGenres, topK);
+            }
+        } else if (topK > 0) {
+            ordinals = Recommendation.rankWatched(catalog, watched, topK, profileCache, popularity, diversity);
+        } else {
+            // unbounded: stream titles in catalog order, no intermediate title set
+            StringBuilder block = new StringBuilder(256);
+            block.append(name).append(',').append(id).append(System.lineSeparator());
+            int written = RecommendationCursor.openWatched(catalog, watched, RecommendationCursor.Order.CATALOG,
+                    profileCache).writeTitles(block, Integer.MAX_VALUE);
+            if (written == 0 && popularity != null) {
+                // nothing shares a liked genre, so only the global ranking has anything to add
+                int[] popular = popularity.topUp(new int[0], watched, null, emptyFallback);
+                for (int i = 0; i < popular.length; i++) {
+                    if (i > 0) block.append(',');
+                    block.append(catalog.title(popular[i]));
+                }
+            }
+            return block.append(System.lineSeparator()).toString();
+        }
+
+        StringBuilder block = new StringBuilder(64 + ordinals.length * 24);
+        block.append(name).append(',').append(id).append(System.lineSeparator());
+        for (int i = 0; i < ordinals.length; i++) {
+            if (i > 0) block.append(',');
+            block.append(catalog.title(ordinals[i]));
+        }
+        block.append(System.lineSeparator());
+        if (explain) {
+            int[] because = Recommendation.becauseWatched(catalog, watched, ordinals);
+            for (int i = 0; i < because.length; i++) {
+                if (i > 0) block.append(',');
+                if (because[i] >= 0) block.append(catalog.title(because[i]));
+            }
+            block.append(System.lineSeparator());
+        }
+        return block.toString();
+    }
+
+    // never serialized; it only lives inside one pool.invoke
+    @SuppressWarnings("serial")
+    private static final class RangeTask<U> extends RecursiveAction {
+        private final List<U> window;
+        private final Function<U, String> format;
+        private final String[] blocks;
+        private final int from;
+        private final int to;
+
+        RangeTask(List<U> window, Function<U, String> format, String[] blocks, int from, int to) {
+            this.window = window;
+            this.format = format;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                computeRange(window, format, blocks, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask<>(window, format, blocks, from, mid),
+                    new RangeTask<>(window, format, blocks, mid, to));
+        }
+    }
+
+    /**
+     * Outcome of one batch run.
+     *
+     * @param users        users read from the input
+     * @param written      users that got an output entry
+     * @param elapsedNanos wall time of compute plus write
+     */
+    public record BatchStats(int users, int written, long elapsedNanos) {
+
+        public double usersPerSecond() {
+            return elapsedNanos == 0 ? 0 : users * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Processed %d users (%d written) in %.1f ms: %.0f users/sec",
+                    users, written, elapsedNanos / 1_000_000.0, usersPerSecond());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package logic;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Lazy view of one user's genre-overlap recommendations, yielding ordinals
+ * one at a time instead of materializing a title set.
+ *
+ * {@link Order#CATALOG} walks the candidate bitmap with
+ * {@link CompressedBitmap#nextValue(int)}, skipping watched movies, so
+ * stopping after K results costs only those K steps. {@link Order#SCORE}
+ * scores every candidate into a heap once (linear heapify) and pops
+ * lazily, so K results cost O(candidates + K log candidates) with no full
+ * sort; ties come in catalog order, as in the ranked top-K. A title shared
+ * by several movies is yielded once in score order, through its best-scored
+ * movie, so the ranking matches the ranked top-K there too.
+ *
+ * A cursor belongs to one thread and is used once.
+ */
+public final class RecommendationCursor implements PrimitiveIterator.OfInt {
+
+    public enum Order {
+        CATALOG,
+        SCORE
+    }
+
+    private final MovieCatalog catalog;
+    private final CompressedBitmap watched;
+    private final Order order;
+
+    // catalog order
+    private final CompressedBitmap candidates;
+    private int next;
+
+    // score order: max-heap of (score << 32 | ~ordinal) keys
+    private long[] heap;
+    private int heapSize;
+    // first ordinal of every title yielded so far, null without duplicate titles
+    private BitSet yieldedTitles;
+
+    private RecommendationCursor(MovieCatalog catalog, CompressedBitmap watched, CompressedBitmap candidates,
+                                 Order order) {
+        this.catalog = catalog;
+        this.watched = watched;
+        this.candidates = candidates;
+        this.order = order;
+        if (order == Order.SCORE) {
+            yieldedTitles = catalog.hasDuplicateTitles() ? new BitSet() : null;
+            buildHeap();
+        } else {
+            next = advance(0);
+        }
+    }
+
+    /**
+     * Opens a cursor over the movies sharing a genre with the watched ones.
+     *
+     * @param catalog       the movie catalog
+     * @param watchedMovies the user's watched IDs; null or empty gives an empty cursor
+     * @param order         catalog or score order
+     * @param cache         shared candidate lists, or null
+     * @return the cursor, positioned before the first result
+     */
+    public static RecommendationCursor open(MovieCatalog catalog, Set<String> watchedMovies, Order order,
+                                            GenreProfileCache cache) {
+        if (watchedMovies == null || watchedMovies.isEmpty() || catalog == null || catalog.isEmpty()) {
+            MovieCatalog target = catalog == null ? MovieCatalog.of(null) : catalog;
+            return new RecommendationCursor(target, CompressedBitmap.EMPTY, CompressedBitmap.EMPTY, order);
+        }
+        return openWatched(catalog, catalog.ordinalsOf(watchedMovies), order, cache);
+    }
+
+    /**
+     * Same as {@link #open}, for watched movies already resolved to
+     * ordinals, e.g. a {@link ResolvedUser}'s: no ID lookups.
+     *
+     * @param catalog the movie catalog
+     * @param watched the watched ordinals; empty gives an empty cursor
+     * @param order   catalog or score order
+     * @param cache   shared candidate lists, or null
+     * @return the cursor, positioned before the first result
+     */
+    public static RecommendationCursor openWatched(MovieCatalog catalog, CompressedBitmap watched, Order order,
+                                                   GenreProfileCache cache) {
+        long[] likedGenres = catalog.newGenreMask();
+        watched.forEach(ordinal -> catalog.orGenreMask(ordinal, likedGenres));
+        CompressedBitmap candidates = cache != null
+                ? cache.candidates(likedGenres) : Recommendation.candidates(catalog, likedGenres);
+        return new RecommendationCursor(catalog, watched, candidates, order);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (order == Order.SCORE) {
+            skipYieldedTitles();
+            return heapSize > 0;
+        }
+        return next >= 0;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (order == Order.SCORE) {
+            int ordinal = pop();
+            if (yieldedTitles != null) {
+                yieldedTitles.set(catalog.firstWithSameTitle(ordinal));
+            }
+            return ordinal;
+        }
+        int ordinal = next;
+        next = advance(ordinal + 1);
+        return ordinal;
+    }
+
+    /**
+     * Appends up to limit titles, comma separated, straight to the buffer.
+     * A title shared by several movies is written once, like the title set
+     * of {@link Recommendation#recommendMovies}.
+     *
+     * @param out   the output buffer
+     * @param limit maximum number of titles
+     * @return the number of titles written
+     */
+    public int writeTitles(StringBuilder out, int limit) {
+        BitSet seenTitles = order == Order.CATALOG && catalog.hasDuplicateTitles() ? new BitSet() : null;
+        int written = 0;
+        while (written < limit && hasNext()) {
+            int ordinal = nextInt();
+            if (seenTitles != null) {
+                int title = catalog.firstWithSameTitle(ordinal);
+                if (seenTitles.get(title)) continue;
+                seenTitles.set(title);
+            }
+            if (written > 0) out.append(',');
+            out.append(catalog.title(ordinal));
+            written++;
+        }
+        return written;
+    }
+
+    //--- Catalog order ---//
+    private int advance(int from) {
+        int ordinal = candidates.nextValue(from);
+        while (ordinal >= 0 && watched.contains(ordinal)) {
+            ordinal = candidates.nextValue(ordinal + 1);
+        }
+        return ordinal;
+    }
+
+    //--- Score order ---//
+    private void buildHeap() {
+        int[] genreWeights = new int[catalog.maskWords() << 6];
+        watched.forEach(ordinal -> catalog.countGenres(ordinal, genreWeights));
+        heap = new long[candidates.cardinality()];
+        candidates.forEach(ordinal -> {
+            if (!watched.contains(ordinal)) {
+                heap[heapSize++] = ((long) catalog.genreWeight(ordinal, genreWeights) << 32)
+                        | (~ordinal & 0xFFFFFFFFL);
+            }
+        });
+        for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    // Drops heap tops whose title already came out through a better-scored movie
+    private void skipYieldedTitles() {
+        while (yieldedTitles != null && heapSize > 0
+                && yieldedTitles.get(catalog.firstWithSameTitle(~(int) heap[0]))) {
+            pop();
+        }
+    }
+
+    private int pop() {
+        int ordinal = ~(int) heap[0];
+        heap[0] = heap[--heapSize];
+        siftDown(0);
+        return ordinal;
+    }
+
+    private void siftDown(int index) {
+        if (heapSize == 0) return;
+        long key = heap[index];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            if (child + 1 < heapSize && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (key >= heap[child]) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
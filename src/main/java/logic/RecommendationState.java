@@ -0,0 +1,125 @@
+package logic;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One user's recommendations kept up to date as they watch more movies.
+ *
+ * Holds the watched ordinals, the liked-genre mask and the recommended
+ * ordinals. {@link #watch(String)} removes the new movie from the result
+ * and adds only the postings of genres that were not liked before, so the
+ * cost follows the size of the change rather than the catalog. The result
+ * always equals {@link Recommendation#recommendMovies} on the same watched set.
+ *
+ * Not thread-safe; meant to be owned by one interactive session.
+ */
+public final class RecommendationState {
+
+    private final MovieCatalog catalog;
+    private final Set<String> watchedIds;
+    private final BitSet watched = new BitSet();
+    private final BitSet recommended = new BitSet();
+    private final long[] likedGenres;
+
+    private RecommendationState(MovieCatalog catalog) {
+        this.catalog = catalog;
+        this.watchedIds = new HashSet<>();
+        this.likedGenres = catalog.newGenreMask();
+    }
+
+    /**
+     * Computes the starting state with one full pass.
+     *
+     * @param catalog       the movie catalog
+     * @param watchedMovies the IDs watched so far; may be null or empty
+     * @return the state
+     */
+    public static RecommendationState of(MovieCatalog catalog, Set<String> watchedMovies) {
+        RecommendationState state = new RecommendationState(catalog);
+        if (watchedMovies == null || watchedMovies.isEmpty()) {
+            return state;
+        }
+        state.watchedIds.addAll(watchedMovies);
+        CompressedBitmap watchedOrdinals = catalog.ordinalsOf(watchedMovies);
+        watchedOrdinals.forEach(ordinal -> {
+            state.watched.set(ordinal);
+            catalog.orGenreMask(ordinal, state.likedGenres);
+        });
+        Recommendation.candidates(catalog, state.likedGenres).andNot(watchedOrdinals)
+                .forEach(state.recommended::set);
+        return state;
+    }
+
+    /**
+     * Records one more watched movie and updates the recommendations.
+     *
+     * @param movieId the newly watched ID; unknown IDs only join the watched set
+     * @return true if the recommended movies changed
+     */
+    public boolean watch(String movieId) {
+        if (movieId == null || !watchedIds.add(movieId)) {
+            return false;
+        }
+        int first = catalog.ordinalOf(movieId);
+        if (first < 0) {
+            return false;
+        }
+
+        boolean changed = false;
+        long[] movieGenres = catalog.newGenreMask();
+        for (int ordinal = first; ordinal >= 0; ordinal = catalog.nextWithSameId(ordinal)) {
+            watched.set(ordinal);
+            catalog.orGenreMask(ordinal, movieGenres);
+        }
+
+        //--- Newly liked genres bring in their postings ---//
+        for (int w = 0; w < likedGenres.length; w++) {
+            long fresh = movieGenres[w] & ~likedGenres[w];
+            likedGenres[w] |= fresh;
+            for (; fresh != 0; fresh &= fresh - 1) {
+                CompressedBitmap postings = catalog.genreIndex().postings((w << 6) + Long.numberOfTrailingZeros(fresh));
+                int[] added = postings.toArray();
+                for (int ordinal : added) {
+                    if (!watched.get(ordinal) && !recommended.get(ordinal)) {
+                        recommended.set(ordinal);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        //--- The watched movie itself leaves the result ---//
+        for (int ordinal = first; ordinal >= 0; ordinal = catalog.nextWithSameId(ordinal)) {
+            if (recommended.get(ordinal)) {
+                recommended.clear(ordinal);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the recommended titles, as recommendMovies would return them
+     */
+    public Set<String> recommendations() {
+        Set<String> titles = new HashSet<>();
+        for (int ordinal = recommended.nextSetBit(0); ordinal >= 0; ordinal = recommended.nextSetBit(ordinal + 1)) {
+            titles.add(catalog.movie(ordinal).title());
+        }
+        return titles;
+    }
+
+    public CompressedBitmap recommendedOrdinals() {
+        return CompressedBitmap.of(recommended.stream().toArray());
+    }
+
+    public int recommendedCount() {
+        return recommended.cardinality();
+    }
+
+    public Set<String> watchedMovies() {
+        return Set.copyOf(watchedIds);
+    }
+}
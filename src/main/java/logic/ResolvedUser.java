@@ -0,0 +1,26 @@
+package logic;
+
+/**
+ * A parsed user whose watched movies are already catalog ordinals.
+ *
+ * @param name    the name, as written
+ * @param id      the user ID
+ * @param watched        ordinals of every catalog movie carrying a watched ID, ascending and distinct
+ * @param unknownWatched how many watched IDs the catalog does not know
+ */
+public record ResolvedUser(String name, String id, int[] watched, int unknownWatched) {
+
+    /**
+     * @return true if the user listed no watched IDs at all, known or not
+     */
+    public boolean watchedNothing() {
+        return watched.length == 0 && unknownWatched == 0;
+    }
+
+    /**
+     * @return the watched ordinals as a bitmap, as the recommenders take them
+     */
+    public CompressedBitmap watchedOrdinals() {
+        return CompressedBitmap.ofSorted(watched, watched.length);
+    }
+}
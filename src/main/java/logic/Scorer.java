@@ -0,0 +1,16 @@
+package logic;
+
+/**
+ * One signal of the {@link Blender} pipeline: generates candidate ordinals
+ * for a user and adds a score for each to the shared buffer.
+ *
+ * Implementations must not allocate per user where avoidable, must skip the
+ * user's watched movies and must be safe to call from several threads.
+ */
+public interface Scorer {
+
+    /**
+     * @param context the user being scored and the score buffer to add to
+     */
+    void score(ScoringContext context);
+}
@@ -0,0 +1,103 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread state of one {@link Blender} call: the user's watched movies,
+ * their liked genres and genre weights, and a dense float[] score buffer
+ * over catalog ordinals. Only touched entries are cleared between users,
+ * so a context is reused without per-user allocation.
+ */
+public final class ScoringContext {
+
+    private final MovieCatalog catalog;
+    private final long[] likedGenres;
+    private final int[] genreWeights;
+    private final float[] scores;
+    private final int[] touchedStamps;
+    private final IntList touched = new IntList(64);
+    private CompressedBitmap watched = CompressedBitmap.EMPTY;
+    private float weight = 1;
+    private int stamp;
+
+    ScoringContext(MovieCatalog catalog) {
+        this.catalog = catalog;
+        this.likedGenres = catalog.newGenreMask();
+        this.genreWeights = new int[catalog.maskWords() << 6];
+        this.scores = new float[catalog.size()];
+        this.touchedStamps = new int[catalog.size()];
+    }
+
+    public MovieCatalog catalog() {
+        return catalog;
+    }
+
+    public CompressedBitmap watched() {
+        return watched;
+    }
+
+    /**
+     * @return the union of the watched movies' genres; do not modify
+     */
+    public long[] likedGenres() {
+        return likedGenres;
+    }
+
+    /**
+     * @return per genre code, how many watched movies carry it; do not modify
+     */
+    public int[] genreWeights() {
+        return genreWeights;
+    }
+
+    /**
+     * Adds a score to a candidate, scaled by the current scorer's weight.
+     */
+    public void add(int ordinal, float score) {
+        if (touchedStamps[ordinal] != stamp) {
+            touchedStamps[ordinal] = stamp;
+            touched.add(ordinal);
+        }
+        scores[ordinal] += weight * score;
+    }
+
+    //--- Pipeline side ---//
+    void reset(CompressedBitmap watchedOrdinals) {
+        for (int i = 0; i < touched.size(); i++) {
+            scores[touched.get(i)] = 0;
+        }
+        touched.clear();
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(touchedStamps, 0);
+            stamp = 1;
+        }
+
+        for (int w = 0; w < likedGenres.length; w++) {
+            for (long bits = likedGenres[w]; bits != 0; bits &= bits - 1) {
+                genreWeights[(w << 6) + Long.numberOfTrailingZeros(bits)] = 0;
+            }
+            likedGenres[w] = 0;
+        }
+        watched = watchedOrdinals;
+        watched.forEach(ordinal -> {
+            catalog.orGenreMask(ordinal, likedGenres);
+            catalog.countGenres(ordinal, genreWeights);
+        });
+    }
+
+    void weight(float weight) {
+        this.weight = weight;
+    }
+
+    int touchedCount() {
+        return touched.size();
+    }
+
+    int touchedAt(int index) {
+        return touched.get(index);
+    }
+
+    float scoreOf(int ordinal) {
+        return scores[ordinal];
+    }
+}
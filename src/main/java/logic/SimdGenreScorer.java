@@ -0,0 +1,31 @@
+package logic;
+
+/**
+ * Genre-overlap scorer that finds its candidates with a {@link GenreMaskScan}
+ * over the whole mask column instead of merging posting bitmaps. Scores are
+ * the same as {@link GenreOverlapScorer}; this pays off for broad profiles,
+ * where most of the catalog matches anyway.
+ */
+public final class SimdGenreScorer implements Scorer {
+
+    private final ThreadLocal<int[]> matches;
+
+    public SimdGenreScorer(MovieCatalog catalog) {
+        this.matches = ThreadLocal.withInitial(() -> new int[catalog.size()]);
+    }
+
+    @Override
+    public void score(ScoringContext context) {
+        MovieCatalog catalog = context.catalog();
+        int[] genreWeights = context.genreWeights();
+        CompressedBitmap watched = context.watched();
+        int[] buffer = matches.get();
+        int count = GenreMaskScan.matching(catalog, context.likedGenres(), buffer);
+        for (int i = 0; i < count; i++) {
+            int ordinal = buffer[i];
+            if (!watched.contains(ordinal)) {
+                context.add(ordinal, catalog.genreWeight(ordinal, genreWeights));
+            }
+        }
+    }
+}
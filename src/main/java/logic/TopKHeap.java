@@ -0,0 +1,116 @@
+package logic;
+
+/**
+ * Bounded min-heap keeping the K best (score, ordinal) pairs.
+ *
+ * Each entry is packed into one long: the score in the high 32 bits and the
+ * complemented ordinal in the low 32 bits, so a larger key means a higher
+ * score and, on equal scores, a lower ordinal (catalog order). Float
+ * scores are stored as order-preserving int keys; {@link #scoreAsFloat(int)}
+ * turns a drained key back into the float.
+ */
+final class TopKHeap {
+
+    private final long[] heap;
+    private int size;
+
+    TopKHeap(int k) {
+        heap = new long[Math.max(0, k)];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return heap.length;
+    }
+
+    boolean offer(int score, int ordinal) {
+        long key = ((long) score << 32) | (~ordinal & 0xFFFFFFFFL);
+        if (size < heap.length) {
+            heap[size] = key;
+            siftUp(size++);
+            return true;
+        }
+        if (size == 0 || key <= heap[0]) {
+            return false;
+        }
+        heap[0] = key;
+        siftDown(0);
+        return true;
+    }
+
+    boolean offer(float score, int ordinal) {
+        return offer(sortableBits(score), ordinal);
+    }
+
+    static float scoreAsFloat(int key) {
+        // the mapping is its own inverse
+        return Float.intBitsToFloat(key ^ ((key >> 31) & 0x7FFFFFFF));
+    }
+
+    // Negative floats order backwards by raw bits; flipping their magnitude bits fixes that
+    private static int sortableBits(float score) {
+        int bits = Float.floatToRawIntBits(score);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    /**
+     * Empties the heap into the given arrays, best entry first.
+     *
+     * @param ordinals receives the ordinals (length at least size())
+     * @param scores   receives the raw int scores, or null if not needed
+     * @return the number of entries written
+     */
+    int drain(int[] ordinals, int[] scores) {
+        int count = size;
+        for (int i = count - 1; i >= 0; i--) {
+            long key = heap[0];
+            ordinals[i] = ~(int) key;
+            if (scores != null) {
+                scores[i] = (int) (key >>> 32);
+            }
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return count;
+    }
+
+    int[] drainOrdinals() {
+        int[] ordinals = new int[size];
+        drain(ordinals, null);
+        return ordinals;
+    }
+
+    private void siftUp(int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private void siftDown(int index) {
+        if (size == 0) return;
+        long key = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
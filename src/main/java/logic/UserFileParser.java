@@ -2,48 +2,460 @@ package logic;
 
 import model.User;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
 
 public class UserFileParser {
 
+    static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private final int chunkBytes;
+
+    public UserFileParser() {
+        this(DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param chunkBytes size of the byte ranges parsed in parallel by {@link #streamUsers(String, int)}
+     */
+    public UserFileParser(int chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("ERROR: Chunk size must be at least 1 byte");
+        }
+        this.chunkBytes = chunkBytes;
+    }
+
     public List<User> readUsers(String filePath) throws Exception {
         List<User> users = new ArrayList<>();
 
-        try(BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
+        try (MappedLines lines = new MappedLines(Path.of(filePath), 0, MappedLines.DEFAULT_WINDOW_BYTES)) {
+            while (lines.next()) {
                 //skip blank lines
-                if (line.trim().isEmpty()) {
+                if (lines.isBlank()) {
                     continue;
                 }
 
-                String[] nameAndId = line.split(",");
-                if (nameAndId. length != 2) {
-                    throw new Exception("ERROR: Wrong user line format:  " + line);
+                String[] nameAndId = splitHeader(lines);
+                if (nameAndId == null) {
+                    throw new Exception("ERROR: Wrong user line format:  " + lines.decode(lines.start, lines.end));
+                }
+                // this reader has always failed with a NullPointerException here
+                if (!lines.next()) {
+                    throw new NullPointerException("ERROR: Watched movies missing for user: " + nameAndId[0]);
                 }
 
-                // Only trim the userId, preserve spaces in name (but not leading/trailing on the whole field)
-                String name = nameAndId[0]; // DO NOT trim - preserve leading spaces
-                String userId = nameAndId[1]. trim();
+                users.add(new User(nameAndId[0], nameAndId[1], readWatched(lines)));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Parses the users file in parallel, with the same result as
+     * {@link #readUsers(String)}, except that a missing watched-movies line
+     * is reported as an error, and errors name their line.
+     *
+     * @param filePath    the users file
+     * @param parallelism worker threads
+     * @return the users, in file order
+     * @throws Exception with the message and line of the first malformed record, or if reading fails
+     * @see #streamUsers(String, int)
+     */
+    public List<User> readUsers(String filePath, int parallelism) throws Exception {
+        try (Stream<User> users = streamUsers(filePath, parallelism)) {
+            return users.collect(Collectors.toCollection(ArrayList::new));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads the users file like {@link #streamUsers(String)}, parsing it in
+     * parallel a group of byte ranges at a time, so only one group of users
+     * is held at once.
+     *
+     * The file is memory-mapped and cut into byte ranges of chunkBytes, each
+     * moved forward to the next line start; a group holds parallelism
+     * ranges. A range cannot tell on its own whether its first line is a
+     * "name,id" header or the watched line of a header in the range before,
+     * so for each group
+     * <ol>
+     *   <li>every range is scanned in parallel, counting its lines and
+     *       working out its end state both for starting on a header and for
+     *       starting on a watched line;</li>
+     *   <li>a prefix over the ranges, in file order and continuing from the
+     *       group before, picks the real start state and first line number
+     *       of each;</li>
+     *   <li>the ranges are parsed in parallel. A record belongs to the range
+     *       holding its header, whose watched line may lie in the next one.</li>
+     * </ol>
+     * The users of a group come out in range order, so they keep file order.
+     * A malformed record throws when its group is parsed, before the earlier
+     * users of that group are yielded; with several errors in a group the
+     * first in the file is thrown.
+     *
+     * @param filePath    the users file
+     * @param parallelism worker threads, and ranges per group
+     * @return the users, in file order
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<User> streamUsers(String filePath, int parallelism) throws IOException {
+        return streamUsers(filePath, parallelism, null);
+    }
+
+    /**
+     * Same as {@link #streamUsers(String, int)}, also checksumming the file
+     * while it is scanned, so no separate read is needed.
+     *
+     * @param filePath     the users file
+     * @param parallelism  worker threads, and ranges per group
+     * @param fileChecksum receives the CRC32C of the whole file once the
+     *                     stream has been read to its end; may be null
+     * @return the users, in file order
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<User> streamUsers(String filePath, int parallelism, LongConsumer fileChecksum)
+            throws IOException {
+        return streamRecords(Path.of(filePath), chunkBytes, parallelism, UserFileParser::readRecord, fileChecksum);
+    }
 
-                String watchedMoviesLine = br.readLine();
+    /**
+     * Reads the users file lazily: each user is parsed when the stream asks
+     * for it, so memory does not grow with the file. Close the stream to
+     * release the file.
+     *
+     * A malformed record throws, when it is reached, an
+     * IllegalArgumentException with the message and line
+     * {@link #readUsers(String, int)} would report. Read failures throw an
+     * UncheckedIOException.
+     *
+     * @param filePath the users file
+     * @return the users, in file order
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<User> streamUsers(String filePath) throws IOException {
+        MappedLines lines = new MappedLines(Path.of(filePath), 0, MappedLines.DEFAULT_WINDOW_BYTES);
+        Iterator<User> iterator = new Iterator<>() {
+            private User next;
+            private long line;
 
-                Set<String> watchedMovies = Arrays.stream(watchedMoviesLine.split(","))
-                        . map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toSet());
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                try {
+                    while (lines.next()) {
+                        line++;
+                        if (lines.isBlank()) continue;
 
-                users.add(new User(name, userId, watchedMovies));
+                        next = readRecord(lines, line);
+                        line++;
+                        return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
-        } //br.close();
-        //System.out.println(users);
-        return users;
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = null;
+                return user;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        lines.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    //--- Parallel parsing helpers ---//
+
+    // Reads the record whose header is the current line, leaving the reader on its watched line
+    interface RecordReader<T> {
+        T read(MappedLines lines, long line) throws IOException;
+    }
+
+    /**
+     * Streams the records of a users-format file through the grouped
+     * parallel parse of {@link #streamUsers(String, int)}. Each range's
+     * CRC32C is taken while it is scanned; when the stream runs out they are
+     * combined in file order and passed to fileChecksum, if not null.
+     */
+    static <T> Stream<T> streamRecords(Path path, int chunkBytes, int parallelism, RecordReader<T> reader,
+                                       LongConsumer fileChecksum) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("ERROR: Parallelism must be at least 1");
+        }
+        ChunkedRecords<T> records = new ChunkedRecords<>(path, chunkBytes, parallelism, reader, fileChecksum);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(records::close);
+    }
+
+    // Yields the records of one group of ranges at a time, parsing the next group when it runs out
+    private static final class ChunkedRecords<T> implements Iterator<T> {
+        private final Path path;
+        private final long size;
+        private final int chunkBytes;
+        private final int chunkCount;
+        private final int parallelism;
+        private final RecordReader<T> reader;
+        private final ForkJoinPool pool;
+        // cleared once the checksum has been passed on
+        private LongConsumer fileChecksum;
+        private long crc;
+
+        private int nextChunk;
+        // state carried from the group before: expecting a watched line, and the next line number
+        private boolean onWatched;
+        private long line = 1;
+        private List<T> group = List.of();
+        private int position;
+
+        ChunkedRecords(Path path, int chunkBytes, int parallelism, RecordReader<T> reader,
+                       LongConsumer fileChecksum) throws IOException {
+            this.path = path;
+            this.size = Files.size(path);
+            this.chunkBytes = chunkBytes;
+            this.chunkCount = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+            this.parallelism = parallelism;
+            this.reader = reader;
+            this.fileChecksum = fileChecksum;
+            this.pool = new ForkJoinPool(parallelism);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == group.size()) {
+                if (nextChunk == chunkCount) {
+                    close();
+                    if (fileChecksum != null) {
+                        fileChecksum.accept(crc);
+                        fileChecksum = null;
+                    }
+                    return false;
+                }
+                try {
+                    parseGroup();
+                } catch (RuntimeException e) {
+                    close();
+                    throw e;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return group.get(position++);
+        }
+
+        void close() {
+            pool.shutdown();
+        }
+
+        private void parseGroup() {
+            int first = nextChunk;
+            int count = Math.min(parallelism, chunkCount - first);
+            ChunkScan[] scans = new ChunkScan[count];
+            List<List<T>> parsed = new ArrayList<>(Collections.nCopies(count, null));
+            Exception[] errors = new Exception[count];
+
+            //--- Phase 1: line counts and end states of every range ---//
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    scans[i] = scan(path, chunkStart(first + i), chunkStart(first + i + 1), fileChecksum != null);
+                } catch (Exception e) {
+                    errors[i] = e;
+                }
+            })).join();
+            throwFirst(errors);
+
+            //--- Phase 2: prefix of start states and line numbers, and the running checksum ---//
+            boolean[] startsOnWatched = new boolean[count];
+            long[] firstLine = new long[count];
+            for (int i = 0; i < count; i++) {
+                startsOnWatched[i] = onWatched;
+                firstLine[i] = line;
+                onWatched = onWatched ? scans[i].endOnWatchedFromWatched : scans[i].endOnWatchedFromHeader;
+                line += scans[i].lines;
+                crc = Crc32c.combine(crc, scans[i].crc, chunkStart(first + i + 1) - chunkStart(first + i));
+            }
+
+            //--- Phase 3: parse every range from its real state ---//
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    parsed.set(i, parse(path, chunkStart(first + i), chunkStart(first + i + 1),
+                            startsOnWatched[i], firstLine[i], reader));
+                } catch (Exception e) {
+                    errors[i] = e;
+                }
+            })).join();
+            throwFirst(errors);
+
+            int total = 0;
+            for (List<T> records : parsed) {
+                total += records.size();
+            }
+            List<T> records = new ArrayList<>(total);
+            for (List<T> chunkRecords : parsed) {
+                records.addAll(chunkRecords);
+            }
+            group = records;
+            position = 0;
+            nextChunk += count;
+        }
+
+        // Clamped to the file, so the last range ends at its end
+        private long chunkStart(int chunk) {
+            return Math.min((long) chunk * chunkBytes, size);
+        }
+    }
+
+    // Opens a reader on the first line starting at or after from
+    private static MappedLines open(Path path, long from) throws IOException {
+        MappedLines lines = new MappedLines(path, Math.max(0, from - 1), MappedLines.DEFAULT_WINDOW_BYTES);
+        if (from > 0) {
+            // the line holding byte from - 1 belongs to the range before
+            lines.next();
+        }
+        return lines;
+    }
+
+    // Line count and end states of the range, and with checksum set the CRC32C of its bytes [from, to)
+    private static ChunkScan scan(Path path, long from, long to, boolean checksum) throws IOException {
+        int count = 0;
+        // the state after each line, for both possible start states
+        boolean fromHeader = false, fromWatched = true;
+        CRC32C crc = new CRC32C();
+        try (MappedLines lines = open(path, from)) {
+            while (lines.next() && lines.lineOffset() < to) {
+                count++;
+                boolean blank = lines.isBlank();
+                fromHeader = !fromHeader && !blank;
+                fromWatched = !fromWatched && !blank;
+            }
+            if (checksum) {
+                lines.checksum(crc, from, to);
+            }
+        }
+        return new ChunkScan(count, fromHeader, fromWatched, crc.getValue());
+    }
+
+    private static <T> List<T> parse(Path path, long from, long to, boolean onWatched, long firstLine,
+                                     RecordReader<T> reader) throws IOException {
+        List<T> records = new ArrayList<>();
+        long line = firstLine;
+        try (MappedLines lines = open(path, from)) {
+            for (; lines.next() && lines.lineOffset() < to; line++) {
+                if (onWatched) {
+                    // the watched line of the last record of the range before
+                    onWatched = false;
+                    continue;
+                }
+                if (lines.isBlank()) {
+                    continue;
+                }
+
+                records.add(reader.read(lines, line));
+                line++;
+            }
+        }
+        return records;
+    }
+
+    // Parses the record whose header is the current line, leaving the reader on its watched line
+    private static User readRecord(MappedLines lines, long line) throws IOException {
+        String[] nameAndId = readHeader(lines, line);
+        return new User(nameAndId[0], nameAndId[1], readWatched(lines));
+    }
+
+    // Watched IDs of the current line: trimmed, empty ones skipped
+    private static Set<String> readWatched(MappedLines lines) {
+        Set<String> watched = new HashSet<>();
+        for (FieldTokenizer fields = lines.fields(); fields.next(); ) {
+            if (fields.start < fields.end) {
+                watched.add(lines.decode(fields.start, fields.end));
+            }
+        }
+        return watched;
+    }
+
+    /**
+     * Parses the "name,id" header on the current line and moves to the
+     * watched line after it.
+     *
+     * @return the name, as written, and the trimmed ID
+     * @throws IllegalArgumentException if the header is malformed or the watched line is missing
+     */
+    static String[] readHeader(MappedLines lines, long line) throws IOException {
+        String[] nameAndId = splitHeader(lines);
+        if (nameAndId == null) {
+            throw new IllegalArgumentException("ERROR: Wrong user line format:  "
+                    + lines.decode(lines.start, lines.end) + " (line " + line + ")");
+        }
+
+        if (!lines.next()) {
+            throw new IllegalArgumentException("ERROR: Watched movies missing for user: " + nameAndId[0]
+                    + " (line " + line + ")");
+        }
+        return nameAndId;
+    }
+
+    // The name, as written, and the trimmed ID of the current line, or null unless it has exactly two fields
+    private static String[] splitHeader(MappedLines lines) {
+        // trailing empty fields are dropped, as String.split does
+        FieldTokenizer fields = lines.fields().dropTrailingEmpty();
+        if (!fields.next()) {
+            return null;
+        }
+        String name = lines.decode(fields.rawStart, fields.rawEnd);
+        if (!fields.next() || fields.hasNext()) {
+            return null;
+        }
+        return new String[]{name, lines.decode(fields.start, fields.end)};
+    }
+
+    // Readers only throw IOException or unchecked exceptions
+    private static void throwFirst(Exception[] errors) {
+        for (Exception error : errors) {
+            if (error instanceof IOException io) throw new UncheckedIOException(io);
+            if (error != null) throw (RuntimeException) error;
+        }
+    }
+
+    // A range's line count, whether it ends expecting a watched line per start state, and its CRC32C
+    private record ChunkScan(int lines, boolean endOnWatchedFromHeader, boolean endOnWatchedFromWatched,
+                             long crc) {
     }
-}
\ No newline at end of file
+}
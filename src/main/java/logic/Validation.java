@@ -128,4 +128,12 @@ public class Validation {
     public static String validateUserName(User user, Set<String> existingIds) {
         return validateUserName(user.name());
     }
+
+    public static String validateUserId(ResolvedUser user, Set<String> existingIds) {
+        return validateUserId(user.id(), existingIds);
+    }
+
+    public static String validateUserName(ResolvedUser user, Set<String> existingIds) {
+        return validateUserName(user.name());
+    }
 }
\ No newline at end of file
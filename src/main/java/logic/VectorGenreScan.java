@@ -0,0 +1,69 @@
+package logic;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API body of {@link GenreMaskScan}. Only loaded once the
+ * jdk.incubator.vector module is known to be present.
+ *
+ * With one mask word per movie every lane is a movie. With several, a
+ * vector holds lanes / maskWords whole movies and the liked mask is
+ * repeated to match; a movie matches if any of its lanes does. Catalogs
+ * whose word count does not divide the lane count use the scalar loop.
+ */
+final class VectorGenreScan {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private VectorGenreScan() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static int matching(long[] column, int maskWords, int movieCount, long[] likedGenres, int[] out) {
+        int lanes = SPECIES.length();
+        if (lanes % maskWords != 0) {
+            return GenreMaskScan.scalar(column, maskWords, 0, movieCount, likedGenres, out, 0);
+        }
+
+        LongVector liked;
+        if (maskWords == 1) {
+            liked = LongVector.broadcast(SPECIES, likedGenres[0]);
+        } else {
+            long[] pattern = new long[lanes];
+            for (int i = 0; i < lanes; i++) {
+                pattern[i] = likedGenres[i % maskWords];
+            }
+            liked = LongVector.fromArray(SPECIES, pattern, 0);
+        }
+
+        int bound = SPECIES.loopBound(movieCount * maskWords);
+        int moviesPerVector = lanes / maskWords;
+        long group = (1L << maskWords) - 1;
+        int size = 0;
+        for (int i = 0; i < bound; i += lanes) {
+            long hits = LongVector.fromArray(SPECIES, column, i).and(liked)
+                    .compare(VectorOperators.NE, 0).toLong();
+            if (hits == 0) continue;
+
+            if (maskWords == 1) {
+                for (; hits != 0; hits &= hits - 1) {
+                    out[size++] = i + Long.numberOfTrailingZeros(hits);
+                }
+            } else {
+                int first = i / maskWords;
+                for (int j = 0; j < moviesPerVector; j++) {
+                    if (((hits >>> (j * maskWords)) & group) != 0) {
+                        out[size++] = first + j;
+                    }
+                }
+            }
+        }
+        // tail shorter than a vector
+        return GenreMaskScan.scalar(column, maskWords, bound / maskWords, movieCount, likedGenres, out, size);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import logic.DiversityReranker;
+import logic.GenreProfileCache;
+import logic.MovieCatalog;
+import logic.Recommendation;
+import model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of MMR re-ranking on top of the ranked genre-overlap top-K.
+ *
+ * Run main() with the test classpath, e.g. after mvn test-compile:
+ * java -cp target/test-classes:target/classes:(test dependencies) org.openjdk.jmh.Main DiversityBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiversityBenchmark {
+
+    @Param({"10", "50"})
+    public int k;
+
+    private MovieCatalog catalog;
+    private GenreProfileCache cache;
+    private DiversityReranker diversity;
+    private Set<String> watched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String[] genres = new String[1 + random.nextInt(3)];
+            for (int g = 0; g < genres.length; g++) {
+                genres[g] = "G" + random.nextInt(30);
+            }
+            movies.add(new Movie("Movie" + i, "MV" + i, genres));
+        }
+        catalog = MovieCatalog.of(movies);
+        cache = new GenreProfileCache(catalog, 16);
+        diversity = new DiversityReranker(catalog, 0.7f);
+        watched = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            watched.add("MV" + random.nextInt(movies.size()));
+        }
+    }
+
+    @Benchmark
+    public int[] topK() {
+        return Recommendation.recommendTopOrdinals(catalog, watched, k, cache, null, null);
+    }
+
+    @Benchmark
+    public int[] topKWithMmr() {
+        return Recommendation.recommendTopOrdinals(catalog, watched, k, cache, null, diversity);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DiversityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
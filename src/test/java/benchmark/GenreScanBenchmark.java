@@ -0,0 +1,112 @@
+package benchmark;
+
+import logic.CompressedBitmap;
+import logic.GenreMaskScan;
+import logic.MovieCatalog;
+import logic.Recommendation;
+import model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candidate generation for one user: the posting-bitmap path behind
+ * getRecommendations against the scalar and vector mask-column scans.
+ *
+ * Run main() with the test classpath, e.g. after mvn test-compile:
+ * java -cp target/test-classes:target/classes:(test dependencies) org.openjdk.jmh.Main GenreScanBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GenreScanBenchmark {
+
+    @Param({"10000", "100000"})
+    public int movieCount;
+
+    @Param({"20", "100"})
+    public int genreCount;
+
+    private MovieCatalog catalog;
+    private Set<String> watchedIds;
+    private CompressedBitmap watched;
+    private long[] likedGenres;
+    private int[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int i = 0; i < movieCount; i++) {
+            String[] genres = new String[1 + random.nextInt(3)];
+            for (int g = 0; g < genres.length; g++) {
+                genres[g] = "G" + random.nextInt(genreCount);
+            }
+            movies.add(new Movie("Movie" + i, "MV" + i, genres));
+        }
+        catalog = MovieCatalog.of(movies);
+
+        watchedIds = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            watchedIds.add("MV" + random.nextInt(movieCount));
+        }
+        watched = catalog.ordinalsOf(watchedIds);
+        likedGenres = catalog.newGenreMask();
+        watched.forEach(ordinal -> catalog.orGenreMask(ordinal, likedGenres));
+        buffer = new int[movieCount];
+    }
+
+    @Benchmark
+    public Set<String> getRecommendations() {
+        return Recommendation.recommendMovies(catalog, watchedIds);
+    }
+
+    @Benchmark
+    public int scalarScan() {
+        int count = GenreMaskScan.matchingScalar(catalog, likedGenres, buffer);
+        return excludeWatched(count);
+    }
+
+    @Benchmark
+    public int vectorScan() {
+        int count = GenreMaskScan.matching(catalog, likedGenres, buffer);
+        return excludeWatched(count);
+    }
+
+    // Same post-filter as the recommendation path, so the work compared is equal
+    private int excludeWatched(int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!watched.contains(buffer[i])) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GenreScanBenchmark.class.getSimpleName()).build()).run();
+    }
+}
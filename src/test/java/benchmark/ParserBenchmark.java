@@ -0,0 +1,177 @@
+package benchmark;
+
+import logic.MovieFileParser;
+import logic.UserFileParser;
+import model.Movie;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * File parsing: the former split-based movie and user parsers against the
+ * tokenizer-based mapped parsers, all on one thread over the same generated
+ * files.
+ *
+ * Run main() with the test classpath, e.g. after mvn test-compile:
+ * java -cp target/test-classes:target/classes:(test dependencies) org.openjdk.jmh.Main ParserBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"100000"})
+    public int recordCount;
+
+    private Path directory;
+    private String moviesFile;
+    private String usersFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        directory = Files.createTempDirectory("parserBenchmark");
+        Path movies = directory.resolve("movies.txt");
+        Path users = directory.resolve("users.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(movies)) {
+            for (int i = 0; i < recordCount; i++) {
+                writer.write("The Movie Number " + i + ", MV" + i);
+                writer.newLine();
+                writer.write("Genre" + random.nextInt(20) + ", Genre" + random.nextInt(20) + ", Drama");
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(users)) {
+            for (int i = 0; i < recordCount; i++) {
+                writer.write("User Name " + i + "," + (100000000 + i));
+                writer.newLine();
+                for (int w = 0; w < 8; w++) {
+                    if (w > 0) writer.write(", ");
+                    writer.write("MV" + random.nextInt(recordCount));
+                }
+                writer.newLine();
+            }
+        }
+        moviesFile = movies.toString();
+        usersFile = users.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(moviesFile));
+        Files.deleteIfExists(Path.of(usersFile));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Movie> moviesSplit() throws Exception {
+        return readMoviesSplit(moviesFile);
+    }
+
+    @Benchmark
+    public List<Movie> moviesTokenizer() throws Exception {
+        return new MovieFileParser().readMovies(moviesFile);
+    }
+
+    @Benchmark
+    public List<User> usersSplit() throws Exception {
+        return readUsersSplit(usersFile);
+    }
+
+    @Benchmark
+    public List<User> usersTokenizer() throws Exception {
+        try (Stream<User> users = new UserFileParser().streamUsers(usersFile)) {
+            return users.toList();
+        }
+    }
+
+    // The movie parser as it was before mapping, as the baseline
+    private static List<Movie> readMoviesSplit(String filePath) throws Exception {
+        List<Movie> movies = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] titleAndId = line.split(",");
+                if (titleAndId.length != 2) {
+                    throw new Exception("ERROR: Wrong movie line format: " + line);
+                }
+                String title = titleAndId[0].trim();
+                String movieId = titleAndId[1].trim();
+                String genresLine = br.readLine();
+                if (genresLine == null) {
+                    throw new Exception("ERROR: Genres missing for movie: " + title);
+                }
+                String[] genres = Arrays.stream(genresLine.split(","))
+                        .map(String::trim)
+                        .toArray(String[]::new);
+                movies.add(new Movie(title, movieId, genres));
+            }
+        }
+        return movies;
+    }
+
+    // The user parser as it was before mapping, as the baseline
+    private static List<User> readUsersSplit(String filePath) throws Exception {
+        List<User> users = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] nameAndId = line.split(",");
+                if (nameAndId.length != 2) {
+                    throw new Exception("ERROR: Wrong user line format:  " + line);
+                }
+                String name = nameAndId[0];
+                String userId = nameAndId[1].trim();
+                String watchedMoviesLine = br.readLine();
+                Set<String> watchedMovies = Arrays.stream(watchedMoviesLine.split(","))
+                        .map(String::trim)
+                        .filter(s -> !s.isEmpty())
+                        .collect(Collectors.toSet());
+                users.add(new User(name, userId, watchedMovies));
+            }
+        }
+        return users;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package unit;
+
+import logic.AlsRecommender;
+import logic.CompressedBitmap;
+import logic.MovieCatalog;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlsRecommenderTest {
+
+    static MovieCatalog catalog;
+    static List<User> users;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i, new String[]{"Drama"}));
+        }
+        catalog = MovieCatalog.of(movies);
+
+        // Two taste clusters: movies 0-4 and movies 5-9
+        users = new ArrayList<>();
+        for (int u = 0; u < 20; u++) {
+            users.add(new User("A", "1000000" + u, Set.of("MV0", "MV1", "MV2", "MV3", "MV4")));
+            users.add(new User("B", "2000000" + u, Set.of("MV5", "MV6", "MV7", "MV8", "MV9")));
+        }
+        users.add(null);
+    }
+
+    @Test
+    @DisplayName("Test recommendations come from the user's taste cluster")
+    public void testRecommendsFromSameCluster() {
+        AlsRecommender model = AlsRecommender.train(catalog, users, 4, 10, 0.1f, 10f, 2, 7L);
+
+        int[] recs = model.recommend(CompressedBitmap.of(0, 1, 2), 2);
+
+        assertEquals(2, recs.length);
+        for (int ordinal : recs) {
+            assertTrue(ordinal == 3 || ordinal == 4, "unexpected recommendation " + ordinal);
+        }
+    }
+
+    @Test
+    @DisplayName("Test watched movies are never recommended")
+    public void testExcludesWatched() {
+        AlsRecommender model = AlsRecommender.train(catalog, users, 4, 5, 0.1f, 10f, 1, 3L);
+
+        int[] recs = model.recommend(CompressedBitmap.of(5, 6, 7), 10);
+
+        assertEquals(7, recs.length);
+        for (int ordinal : recs) {
+            assertFalse(ordinal == 5 || ordinal == 6 || ordinal == 7);
+        }
+    }
+
+    @Test
+    @DisplayName("Test saved factors load back to identical recommendations")
+    public void testSaveLoadRoundTrip() throws IOException {
+        AlsRecommender model = AlsRecommender.train(catalog, users, 4, 5, 0.1f, 10f, 2, 9L);
+        Path file = tempDir.resolve("model.als");
+
+        model.save(file);
+        AlsRecommender loaded = AlsRecommender.load(file, catalog);
+
+        assertEquals(model.factors(), loaded.factors());
+        assertEquals(model.userCount(), loaded.userCount());
+        for (int[] query : List.of(new int[]{0}, new int[]{1, 2}, new int[]{5, 9}, new int[]{0, 5})) {
+            assertArrayEquals(model.recommend(CompressedBitmap.of(query), 10),
+                    loaded.recommend(CompressedBitmap.of(query), 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Test loading a model trained for another catalog fails")
+    public void testLoadRejectsOtherCatalog() throws IOException {
+        AlsRecommender model = AlsRecommender.train(catalog, users, 2, 1, 0.1f, 1f, 1, 1L);
+        Path file = tempDir.resolve("model.als");
+        model.save(file);
+
+        MovieCatalog smaller = MovieCatalog.of(List.of(new Movie("Only", "OM1", new String[]{"Drama"})));
+
+        assertThrows(IOException.class, () -> AlsRecommender.load(file, smaller));
+    }
+
+    @Test
+    @DisplayName("Test the batch writer accepts the ALS model")
+    public void testBatchIntegration() throws IOException {
+        AlsRecommender model = AlsRecommender.train(catalog, users, 4, 10, 0.1f, 10f, 2, 7L);
+        Path out = tempDir.resolve("out.txt");
+
+        new RecommendationBatch(catalog).recommender(model).topK(2)
+                .run(List.of(new User("Zed", "40000000X", Set.of("MV5", "MV6", "MV7"))), out);
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals("Zed,40000000X", lines.get(0));
+        assertTrue(Set.of("Movie8,Movie9", "Movie9,Movie8").contains(lines.get(1)));
+    }
+}
@@ -0,0 +1,140 @@
+package unit;
+
+import logic.Blender;
+import logic.CoWatchScorer;
+import logic.CompressedBitmap;
+import logic.GenreOverlapScorer;
+import logic.ItemItemRecommender;
+import logic.MovieCatalog;
+import logic.PopularityIndex;
+import logic.PopularityScorer;
+import logic.Recommendation;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlenderTest {
+
+    static MovieCatalog catalog;
+    static List<User> users;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        String[] genres = {"Action", "Drama", "Comedy", "Horror", "SciFi"};
+        Random random = new Random(3);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i,
+                    new String[]{genres[i % 5], genres[random.nextInt(5)]}));
+        }
+        catalog = MovieCatalog.of(movies);
+
+        users = new ArrayList<>();
+        for (int u = 0; u < 200; u++) {
+            Set<String> watched = new HashSet<>();
+            for (int w = 0; w < 1 + random.nextInt(6); w++) {
+                watched.add("MV" + random.nextInt(60));
+            }
+            users.add(new User("U" + u, String.format("%09d", u), watched));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a genre-only blend ranks like recommendTopMovies")
+    public void testGenreOnlyMatchesTopK() {
+        Blender blender = new Blender(catalog).add(new GenreOverlapScorer(), 1f);
+
+        for (User user : users.subList(0, 50)) {
+            int[] expected = Recommendation.recommendTopOrdinals(catalog, user.watchedMovies(), 10, null);
+            assertArrayEquals(expected, blender.recommend(catalog.ordinalsOf(user.watchedMovies()), 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a co-watch-only blend ranks like the item-item model")
+    public void testCoWatchOnlyMatchesItemItem() {
+        ItemItemRecommender itemItem = ItemItemRecommender.build(catalog, users, 20,
+                ItemItemRecommender.Similarity.COSINE, 2);
+        Blender blender = new Blender(catalog).add(new CoWatchScorer(itemItem), 2.5f);
+
+        for (User user : users.subList(0, 50)) {
+            CompressedBitmap watched = catalog.ordinalsOf(user.watchedMovies());
+            assertArrayEquals(itemItem.recommend(watched, 8), blender.recommend(watched, 8));
+        }
+    }
+
+    @Test
+    @DisplayName("Test a heavy popularity weight dominates the blend")
+    public void testWeightsShiftRanking() {
+        PopularityIndex popularity = PopularityIndex.build(catalog, users);
+        Blender blender = new Blender(catalog)
+                .add(new GenreOverlapScorer(), 0.001f)
+                .add(new PopularityScorer(popularity, 60), 100f);
+
+        CompressedBitmap watched = CompressedBitmap.of(59);
+        int[] expected = popularity.topUp(new int[0], watched, null, 5);
+
+        assertArrayEquals(expected, blender.recommend(watched, 5));
+        assertEquals(2, blender.scorerCount());
+    }
+
+    @Test
+    @DisplayName("Test reused buffers do not leak scores between users")
+    public void testBuffersResetBetweenUsers() {
+        Blender blender = new Blender(catalog).add(new GenreOverlapScorer(), 1f);
+        CompressedBitmap first = catalog.ordinalsOf(users.get(0).watchedMovies());
+        int[] before = blender.recommend(first, 10);
+
+        for (User user : users) {
+            blender.recommend(catalog.ordinalsOf(user.watchedMovies()), 7);
+        }
+
+        assertArrayEquals(before, blender.recommend(first, 10));
+    }
+
+    @Test
+    @DisplayName("Test parallel batch output with a blender equals sequential output")
+    public void testBatchParallelMatchesSequential() throws IOException {
+        ItemItemRecommender itemItem = ItemItemRecommender.build(catalog, users, 20,
+                ItemItemRecommender.Similarity.JACCARD, 2);
+        Blender blender = new Blender(catalog)
+                .add(new GenreOverlapScorer(), 0.2f)
+                .add(new PopularityScorer(PopularityIndex.build(catalog, users), 20), 0.3f)
+                .add(new CoWatchScorer(itemItem), 1f);
+        Path sequential = tempDir.resolve("sequential.txt");
+        Path parallel = tempDir.resolve("parallel.txt");
+
+        new RecommendationBatch(catalog).recommender(blender).topK(5).run(users, sequential);
+        new RecommendationBatch(catalog, RecommendationBatch.Mode.FORK_JOIN, 4)
+                .recommender(blender).topK(5).run(users, parallel);
+
+        assertEquals(Files.readString(sequential), Files.readString(parallel));
+    }
+
+    @Test
+    @DisplayName("Test a non-finite weight is rejected")
+    public void testInvalidWeight() {
+        Blender blender = new Blender(catalog);
+
+        assertThrows(IllegalArgumentException.class, () -> blender.add(new GenreOverlapScorer(), Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> blender.add(null, 1f));
+    }
+}
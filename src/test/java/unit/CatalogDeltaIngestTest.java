@@ -0,0 +1,113 @@
+package unit;
+
+import logic.CatalogDeltaIngest;
+import logic.MovieCatalog;
+import logic.MovieFileParser;
+import logic.Recommendation;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogDeltaIngestTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Users whose recommendMovies output differs between the two catalogs
+    private static int[] bruteForceAffected(MovieCatalog before, MovieCatalog after, List<User> users) {
+        return IntStream.range(0, users.size())
+                .filter(u -> users.get(u) != null)
+                .filter(u -> !Recommendation.recommendMovies(before, users.get(u).watchedMovies())
+                        .equals(Recommendation.recommendMovies(after, users.get(u).watchedMovies())))
+                .toArray();
+    }
+
+    @Test
+    @DisplayName("Test affected users equal a full recomputation over several deltas")
+    public void testDifferentialAgainstFullRecompute() {
+        Random random = new Random(23);
+        for (int round = 0; round < 10; round++) {
+            int genreCount = 3 + random.nextInt(20);
+            List<Movie> movies = new ArrayList<>();
+            // every eighth movie shares an ID; titles are unique, so title sets compare like ordinal sets
+            for (int i = 0; i < 80; i++) {
+                movies.add(TestCatalogs.randomMovie(random, i, genreCount, 2, 8, 0));
+            }
+            List<User> users = new ArrayList<>();
+            for (int u = 0; u < 150; u++) {
+                Set<String> watched = new HashSet<>();
+                for (int w = 0; w < random.nextInt(4); w++) {
+                    // IDs up to 120 include titles that only arrive in a later delta
+                    watched.add("MV" + random.nextInt(120));
+                }
+                users.add(u % 40 == 0 ? null : new User("U" + u, String.format("%09d", u), watched));
+            }
+
+            MovieCatalog catalog = MovieCatalog.of(movies);
+            CatalogDeltaIngest ingest = new CatalogDeltaIngest(catalog, users);
+            for (int delta = 0; delta < 3; delta++) {
+                List<Movie> added = new ArrayList<>();
+                for (int i = 0; i < 1 + random.nextInt(15); i++) {
+                    // a few genres never seen before
+                    added.add(TestCatalogs.randomMovie(random, catalog.size() + added.size(), genreCount + 3, 2, 8, 0));
+                }
+                CatalogDeltaIngest.Delta result = ingest.ingest(added);
+
+                assertEquals(catalog.size() + added.size(), result.catalog().size());
+                assertArrayEquals(bruteForceAffected(catalog, result.catalog(), users), result.affectedUsers(),
+                        "round " + round + ", delta " + delta);
+                catalog = result.catalog();
+                assertSame(catalog, ingest.catalog());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test a movie outside every liked genre affects nobody")
+    public void testUnrelatedMovieAffectsNobody() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(new Movie("Alien", "A001", new String[]{"Horror"})));
+        List<User> users = List.of(new User("Ann", "10000000A", Set.of("A001")));
+        CatalogDeltaIngest ingest = new CatalogDeltaIngest(catalog, users);
+
+        CatalogDeltaIngest.Delta delta = ingest.ingest(List.of(new Movie("Brazil", "B002", new String[]{"Comedy"})));
+
+        assertEquals(0, delta.affectedUsers().length);
+        assertEquals(1, delta.addedMovies());
+    }
+
+    @Test
+    @DisplayName("Test only appended records are parsed and only affected users are written")
+    public void testIngestFromFileOffset() throws Exception {
+        Path movies = tempDir.resolve("movies.txt");
+        Files.writeString(movies, "Alien,A001\nHorror\nBrazil,B002\nComedy\n");
+        MovieFileParser parser = new MovieFileParser();
+        MovieCatalog catalog = parser.readCatalog(movies.toString());
+        long parsedSize = Files.size(movies);
+        Files.writeString(movies, Files.readString(movies) + "Carrie,C003\nHorror\n");
+
+        List<User> users = List.of(
+                new User("Ann", "10000000A", Set.of("A001")),
+                new User("Bob", "20000000B", Set.of("B002")));
+        CatalogDeltaIngest ingest = new CatalogDeltaIngest(catalog, users);
+        CatalogDeltaIngest.Delta delta = ingest.ingest(parser, movies.toString(), parsedSize);
+        Path updates = tempDir.resolve("updates.txt");
+        ingest.writeUpdates(delta, updates);
+
+        assertEquals(1, delta.addedMovies());
+        assertArrayEquals(new int[]{0}, delta.affectedUsers());
+        assertEquals(List.of("Ann,10000000A", "Carrie"), Files.readAllLines(updates));
+    }
+}
@@ -0,0 +1,199 @@
+package unit;
+
+import logic.CatalogSnapshot;
+import logic.CatalogUserParser;
+import logic.MovieCatalog;
+import logic.MovieFileParser;
+import logic.RecommendationBatch;
+import logic.ResolvedUser;
+import logic.UserFileParser;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MovieCatalog catalog;
+    private List<User> users;
+
+    @BeforeEach
+    public void init() {
+        Random random = new Random(5);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            // more than 64 genres, so the masks span two words
+            movies.add(new Movie("Movie" + i, "MV" + i,
+                    new String[]{"Genre" + random.nextInt(80), "Genre" + random.nextInt(80)}));
+        }
+        movies.add(new Movie("Movie Again", "MV7", new String[]{"Drama"}));
+        movies.add(new Movie("Amélie", "AMÉ1", new String[]{"Romance", "Comedy"}));
+        catalog = MovieCatalog.of(movies);
+
+        users = new ArrayList<>();
+        for (int u = 0; u < 120; u++) {
+            Set<String> watched = new HashSet<>();
+            for (int w = 0; w < 5; w++) {
+                watched.add("MV" + random.nextInt(260));
+            }
+            if (u % 4 == 0) watched.add("AMÉ1");
+            if (u % 5 == 0) watched.add("MV7");
+            users.add(new User("User Ü" + u, String.valueOf(100000000 + u), watched));
+        }
+        users.add(new User("Only Unknown", "999999999", Set.of("GHOST1", "GHOST2")));
+    }
+
+    @Test
+    @DisplayName("Test a loaded snapshot yields the same catalog, users and recommendations")
+    public void testRoundTrip() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalog);
+        users.forEach(builder::add);
+        builder.write(file, 42L);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.load(file);
+        MovieCatalog loaded = snapshot.catalog();
+
+        assertEquals(42L, snapshot.sourceChecksum());
+        assertEquals(catalog.size(), loaded.size());
+        assertEquals(catalog.maskWords(), loaded.maskWords());
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            Movie expected = catalog.movie(ordinal);
+            Movie actual = loaded.movie(ordinal);
+            assertEquals(expected.title(), actual.title());
+            assertEquals(expected.id(), actual.id());
+            assertArrayEquals(expected.genres(), actual.genres());
+            assertEquals(expected.title(), loaded.title(ordinal));
+            assertEquals(expected.id(), loaded.id(ordinal));
+        }
+        assertEquals(catalog.ordinalOf("MV7"), loaded.ordinalOf("MV7"));
+        assertEquals(catalog.nextWithSameId(7), loaded.nextWithSameId(7));
+        assertEquals(catalog.genres().size(), loaded.genres().size());
+        for (int code = 0; code < catalog.genres().size(); code++) {
+            assertEquals(catalog.genreIndex().postings(code), loaded.genreIndex().postings(code));
+        }
+        List<ResolvedUser> resolved = snapshot.resolvedUsers().toList();
+        assertEquals(users.size(), resolved.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(users.get(i).name(), resolved.get(i).name());
+            assertEquals(users.get(i).id(), resolved.get(i).id());
+            assertArrayEquals(catalog.ordinalsOf(users.get(i).watchedMovies()).toArray(), resolved.get(i).watched());
+        }
+        int[] watchCounts = new int[catalog.size()];
+        users.forEach(user -> catalog.ordinalsOf(user.watchedMovies()).forEach(ordinal -> watchCounts[ordinal]++));
+        assertArrayEquals(watchCounts, snapshot.watchCounts());
+        ResolvedUser onlyUnknown = snapshot.resolvedUser(users.size() - 1);
+        assertEquals(0, onlyUnknown.watched().length);
+        assertEquals(2, onlyUnknown.unknownWatched());
+
+        for (int k : new int[]{0, 10}) {
+            Path expected = tempDir.resolve("expected" + k + ".txt");
+            Path actual = tempDir.resolve("actual" + k + ".txt");
+            new RecommendationBatch(catalog).topK(k).run(users, expected);
+            new RecommendationBatch(loaded).topK(k).runResolvedStreaming(snapshot.resolvedUsers(), actual);
+            assertEquals(Files.readString(expected), Files.readString(actual));
+        }
+    }
+
+    @Test
+    @DisplayName("Test users added already resolved give the same snapshot as parsed users")
+    public void testResolvedUsersMatchUsers() throws Exception {
+        Path usersFile = tempDir.resolve("users.txt");
+        StringBuilder text = new StringBuilder();
+        for (User user : users) {
+            text.append(user.name()).append(',').append(user.id()).append('\n')
+                    .append(String.join(",", user.watchedMovies())).append('\n');
+        }
+        Files.writeString(usersFile, text);
+
+        Path fromUsers = tempDir.resolve("users.snapshot");
+        Path fromResolved = tempDir.resolve("resolved.snapshot");
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalog);
+        new UserFileParser().readUsers(usersFile.toString(), 2).forEach(builder::add);
+        builder.write(fromUsers, 7L);
+        CatalogSnapshot.Builder resolvedBuilder = CatalogSnapshot.builder(catalog);
+        new CatalogUserParser(catalog).readUsers(usersFile.toString()).users().forEach(resolvedBuilder::add);
+        resolvedBuilder.write(fromResolved, 7L);
+
+        assertArrayEquals(Files.readAllBytes(fromUsers), Files.readAllBytes(fromResolved));
+    }
+
+    @Test
+    @DisplayName("Test a stale, corrupt or missing snapshot is not used")
+    public void testLoadIfCurrent() throws Exception {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalog);
+        users.forEach(builder::add);
+        builder.write(file, 42L);
+
+        assertNotNull(CatalogSnapshot.loadIfCurrent(file, 42L));
+        assertNull(CatalogSnapshot.loadIfCurrent(file, 43L));
+        assertNull(CatalogSnapshot.loadIfCurrent(tempDir.resolve("missing.snapshot"), 42L));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertNull(CatalogSnapshot.loadIfCurrent(file, 42L));
+        Exception exception = assertThrows(Exception.class, () -> CatalogSnapshot.load(file));
+        assertTrue(exception.getMessage().startsWith("ERROR: Corrupt catalog snapshot"));
+    }
+
+    @Test
+    @DisplayName("Test the source checksum changes with either input file")
+    public void testSourceChecksum() throws Exception {
+        Path movies = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.writeString(movies, "The Matrix,TM123\nAction\n");
+        Files.writeString(usersFile, "John Doe,12345678A\nTM123\n");
+
+        long original = CatalogSnapshot.sourceChecksum(movies, usersFile);
+        assertEquals(original, CatalogSnapshot.sourceChecksum(movies, usersFile));
+
+        Files.writeString(usersFile, "John Doe,12345678A\nTM124\n");
+        long usersChanged = CatalogSnapshot.sourceChecksum(movies, usersFile);
+        assertNotEquals(original, usersChanged);
+
+        Files.writeString(movies, "The Matrix,TM123\nDrama\n");
+        assertNotEquals(usersChanged, CatalogSnapshot.sourceChecksum(movies, usersFile));
+    }
+
+    @Test
+    @DisplayName("Test the parsers' checksums match the checksum of the files")
+    public void testChecksumWhileParsing() throws Exception {
+        Path movies = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.writeString(movies, "The Matrix,TM123\nAction\n\nAmélie,AM456\nRomance\n");
+        StringBuilder text = new StringBuilder();
+        for (int u = 0; u < 200; u++) {
+            text.append("User Ü").append(u).append(',').append(100000000 + u).append("\r\nTM123,AM456\n");
+        }
+        Files.writeString(usersFile, text);
+
+        long[] crcs = new long[2];
+        new MovieFileParser().readMovies(movies.toString(), null, crc -> crcs[0] = crc);
+        // 37-byte ranges end mid-line and mid-character; 3 ranges per group
+        try (Stream<User> parsed = new UserFileParser(37).streamUsers(usersFile.toString(), 3,
+                crc -> crcs[1] = crc)) {
+            assertEquals(200, parsed.count());
+        }
+
+        assertEquals(CatalogSnapshot.sourceChecksum(movies, usersFile),
+                CatalogSnapshot.sourceChecksum(crcs[0], crcs[1]));
+    }
+}
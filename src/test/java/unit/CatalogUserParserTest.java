@@ -0,0 +1,152 @@
+package unit;
+
+import logic.CatalogUserParser;
+import logic.MovieCatalog;
+import logic.Recommendation;
+import logic.ResolvedUser;
+import logic.UserFileParser;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogUserParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MovieCatalog catalog;
+
+    @BeforeEach
+    public void init() {
+        String[] genres = {"Action", "Drama", "Comedy", "Horror", "Romance"};
+        Random random = new Random(7);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i, new String[]{genres[random.nextInt(genres.length)]}));
+        }
+        // a duplicated ID resolves to both ordinals
+        movies.add(new Movie("Movie Again", "MV5", new String[]{"Drama"}));
+        movies.add(new Movie("Amélie", "AMÉ1", new String[]{"Romance"}));
+        catalog = MovieCatalog.of(movies);
+    }
+
+    @Test
+    @DisplayName("Test resolved ordinals match the catalog lookup of the parsed IDs")
+    public void testResolvedOrdinalsMatchIdLookup() throws Exception {
+        Random random = new Random(11);
+        StringBuilder content = new StringBuilder();
+        for (int u = 0; u < 200; u++) {
+            content.append("User ").append(u).append(',').append(100000000 + u).append('\n');
+            for (int w = 0; w < 6; w++) {
+                if (w > 0) content.append(", ");
+                content.append(random.nextInt(10) == 0 ? "NOPE" + w : "MV" + random.nextInt(310));
+            }
+            content.append(u % 3 == 0 ? ",MV5, AMÉ1 ,\n" : "\n");
+            if (u % 10 == 0) content.append('\n');
+        }
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, content);
+
+        List<User> users = new UserFileParser().readUsers(userFile.toString());
+        List<ResolvedUser> resolved = new CatalogUserParser(catalog).readUsers(userFile.toString()).users();
+
+        assertEquals(users.size(), resolved.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(users.get(i).name(), resolved.get(i).name());
+            assertEquals(users.get(i).id(), resolved.get(i).id());
+            assertArrayEquals(catalog.ordinalsOf(users.get(i).watchedMovies()).toArray(), resolved.get(i).watched());
+            assertArrayEquals(Recommendation.recommendTopOrdinals(catalog, users.get(i).watchedMovies(), 5, null),
+                    Recommendation.rankWatched(catalog, resolved.get(i).watchedOrdinals(), 5, null, null, null));
+        }
+    }
+
+    @Test
+    @DisplayName("Test the parallel stream yields the same users as the sequential parse")
+    public void testStreamUsersMatchesReadUsers() throws Exception {
+        Random random = new Random(13);
+        StringBuilder content = new StringBuilder();
+        for (int u = 0; u < 300; u++) {
+            content.append("User ").append(u).append(',').append(100000000 + u).append("\r\n");
+            content.append("MV").append(random.nextInt(310)).append(", AMÉ1,NOPE").append(u % 4).append('\n');
+            if (u % 7 == 0) content.append("\n\n");
+        }
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, content);
+
+        List<ResolvedUser> expected = new CatalogUserParser(catalog).readUsers(userFile.toString()).users();
+        long[] crc = new long[1];
+        List<ResolvedUser> streamed;
+        // 41-byte ranges end mid-record and mid-character
+        try (Stream<ResolvedUser> users = new CatalogUserParser(catalog, 41)
+                .streamUsers(userFile.toString(), 3, checksum -> crc[0] = checksum)) {
+            streamed = users.toList();
+        }
+
+        assertEquals(expected.size(), streamed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).name(), streamed.get(i).name());
+            assertEquals(expected.get(i).id(), streamed.get(i).id());
+            assertArrayEquals(expected.get(i).watched(), streamed.get(i).watched());
+            assertEquals(expected.get(i).unknownWatched(), streamed.get(i).unknownWatched());
+        }
+        int[] watchCounts = new int[catalog.size()];
+        expected.forEach(user -> {
+            for (int ordinal : user.watched()) watchCounts[ordinal]++;
+        });
+        assertArrayEquals(watchCounts, new CatalogUserParser(catalog, 41).countWatchers(userFile.toString(), 3));
+        CRC32C fileCrc = new CRC32C();
+        fileCrc.update(Files.readAllBytes(userFile));
+        assertEquals(fileCrc.getValue(), crc[0]);
+
+        Files.writeString(userFile, content + "Broken line\nMV2\n");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            try (Stream<ResolvedUser> users = new CatalogUserParser(catalog, 41)
+                    .streamUsers(userFile.toString(), 3, null)) {
+                users.forEach(u -> { });
+            }
+        });
+        assertTrue(exception.getMessage().startsWith("ERROR: Wrong user line format:  Broken line (line "));
+    }
+
+    @Test
+    @DisplayName("Test unknown IDs are counted and reported with their line")
+    public void testUnknownIds() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, "John Doe,111111111\nMV1, GHOST, MV2\n\nJane Roe,222222222\nGHOST,MV5\n");
+
+        CatalogUserParser.Result quiet = new CatalogUserParser(catalog).readUsers(userFile.toString());
+        CatalogUserParser.Result reported = new CatalogUserParser(catalog).reportUnknown(true)
+                .readUsers(userFile.toString());
+
+        assertEquals(2, quiet.unknownIds());
+        assertTrue(quiet.unknownReport().isEmpty());
+        assertEquals(List.of("GHOST (line 2)", "GHOST (line 5)"), reported.unknownReport());
+        assertArrayEquals(new int[]{1, 2}, reported.users().get(0).watched());
+        assertArrayEquals(new int[]{5, 300}, reported.users().get(1).watched());
+    }
+
+    @Test
+    @DisplayName("Test malformed records report the same errors as the user parser")
+    public void testMalformedRecord() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, "John Doe,111111111\nMV1\nBroken line\nMV2\n");
+
+        Exception exception = assertThrows(Exception.class,
+                () -> new CatalogUserParser(catalog).readUsers(userFile.toString()));
+
+        assertEquals("ERROR: Wrong user line format:  Broken line (line 3)", exception.getMessage());
+    }
+}
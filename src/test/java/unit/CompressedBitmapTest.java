@@ -0,0 +1,140 @@
+package unit;
+
+import logic.CompressedBitmap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedBitmapTest {
+
+    // Mix of sparse values, dense random blocks and long runs across several 65536-value groups
+    private static BitSet randomSet(Random random) {
+        BitSet set = new BitSet();
+        for (int i = 0; i < 300; i++) {
+            set.set(random.nextInt(300_000));
+        }
+        int denseBase = 65536 * (1 + random.nextInt(3));
+        for (int i = 0; i < 20_000; i++) {
+            set.set(denseBase + random.nextInt(65536));
+        }
+        int runStart = random.nextInt(200_000);
+        set.set(runStart, runStart + 1 + random.nextInt(70_000));
+        return set;
+    }
+
+    private static CompressedBitmap toBitmap(BitSet set) {
+        return CompressedBitmap.of(set.stream().toArray());
+    }
+
+    @Test
+    @DisplayName("Test AND, OR, ANDNOT and cardinality against java.util.BitSet")
+    public void testSetOperationsMatchBitSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            BitSet a = randomSet(random);
+            BitSet b = randomSet(random);
+            CompressedBitmap x = toBitmap(a);
+            CompressedBitmap y = toBitmap(b);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+
+            assertArrayEquals(and.stream().toArray(), x.and(y).toArray());
+            assertArrayEquals(or.stream().toArray(), x.or(y).toArray());
+            assertArrayEquals(andNot.stream().toArray(), x.andNot(y).toArray());
+            assertArrayEquals(or.stream().toArray(), CompressedBitmap.orAll(List.of(x, y)).toArray());
+            assertEquals(a.cardinality(), x.cardinality());
+        }
+    }
+
+    @Test
+    @DisplayName("Test contains and duplicate values")
+    public void testContains() {
+        CompressedBitmap bitmap = CompressedBitmap.of(5, 70_000, 5, 3);
+
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(3, bitmap.cardinality());
+    }
+
+    @Test
+    @DisplayName("Test long runs compress far below one int per value")
+    public void testRunCompression() {
+        int[] values = new int[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        CompressedBitmap bitmap = CompressedBitmap.of(values);
+
+        assertEquals(200_000, bitmap.cardinality());
+        assertTrue(bitmap.sizeInBytes() < 100);
+    }
+
+    @Test
+    @DisplayName("Test groups just below, at and above the array limit pick the same containers")
+    public void testBuilderAcrossArrayLimit() {
+        Random random = new Random(3);
+        for (int count : new int[]{1, 3, 4095, 4096, 4097, 9000}) {
+            BitSet set = new BitSet();
+            while (set.cardinality() < count) {
+                set.set(65536 + random.nextInt(65536));
+            }
+            // a short run inside a sparse group, and a group made only of runs
+            set.set(10, 20);
+            set.set(200_000, 210_000);
+            CompressedBitmap bitmap = toBitmap(set);
+
+            assertArrayEquals(set.stream().toArray(), bitmap.toArray());
+            assertEquals(bitmap, bitmap.or(CompressedBitmap.EMPTY));
+            int sparse = count <= 4096 ? 2 * count : 8192;
+            // keys, the short run (4 bytes), the sparse group, the long run (4 bytes)
+            assertEquals(3 * 2 + 4 + sparse + 4, bitmap.sizeInBytes());
+        }
+        assertEquals(2 + 6, CompressedBitmap.of(1, 5, 9).sizeInBytes());
+    }
+
+    @Test
+    @DisplayName("Test builder rejects out-of-order and negative values")
+    public void testBuilderValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressedBitmap.Builder().add(5).add(4));
+        assertThrows(IllegalArgumentException.class, () -> new CompressedBitmap.Builder().add(-1));
+    }
+
+    @Test
+    @DisplayName("Test operations with the empty bitmap")
+    public void testEmpty() {
+        CompressedBitmap bitmap = CompressedBitmap.of(1, 2, 3);
+
+        assertTrue(bitmap.and(CompressedBitmap.EMPTY).isEmpty());
+        assertEquals(bitmap, bitmap.or(CompressedBitmap.EMPTY));
+        assertEquals(bitmap, bitmap.andNot(CompressedBitmap.EMPTY));
+        assertTrue(CompressedBitmap.orAll(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test nextValue agrees with BitSet.nextSetBit across all container kinds")
+    public void testNextValueMatchesBitSet() {
+        Random random = new Random(13);
+        for (int round = 0; round < 5; round++) {
+            BitSet set = randomSet(random);
+            CompressedBitmap bitmap = toBitmap(set);
+            for (int probe = 0; probe < 2000; probe++) {
+                int from = random.nextInt(350_000);
+                assertEquals(set.nextSetBit(from), bitmap.nextValue(from), "from " + from);
+            }
+            assertEquals(set.nextSetBit(0), bitmap.nextValue(-5));
+        }
+        assertEquals(-1, CompressedBitmap.EMPTY.nextValue(0));
+    }
+}
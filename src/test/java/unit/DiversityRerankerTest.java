@@ -0,0 +1,127 @@
+package unit;
+
+import logic.Blender;
+import logic.CompressedBitmap;
+import logic.DiversityReranker;
+import logic.GenreOverlapScorer;
+import logic.MovieCatalog;
+import logic.Recommendation;
+import model.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiversityRerankerTest {
+
+    // Textbook MMR, comparing every candidate with every picked item on each step
+    private static int[] naiveMmr(MovieCatalog catalog, int[] ordinals, float[] scores, int k, float lambda) {
+        float max = Float.NEGATIVE_INFINITY, min = Float.POSITIVE_INFINITY;
+        for (float score : scores) {
+            max = Math.max(max, score);
+            min = Math.min(min, score);
+        }
+        List<Integer> picked = new ArrayList<>();
+        boolean[] used = new boolean[ordinals.length];
+        for (int pick = 0; pick < Math.min(k, ordinals.length); pick++) {
+            int best = -1;
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < ordinals.length; i++) {
+                if (used[i]) continue;
+                float similarity = 0;
+                for (int j : picked) {
+                    similarity = Math.max(similarity, jaccard(catalog, ordinals[i], ordinals[j]));
+                }
+                float relevance = max > min ? (scores[i] - min) / (max - min) : 1;
+                float value = lambda * relevance - (1 - lambda) * similarity;
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            used[best] = true;
+            picked.add(best);
+        }
+        return picked.stream().mapToInt(i -> ordinals[i]).toArray();
+    }
+
+    private static float jaccard(MovieCatalog catalog, int a, int b) {
+        Set<String> first = new HashSet<>(Arrays.asList(catalog.movie(a).genres()));
+        Set<String> second = new HashSet<>(Arrays.asList(catalog.movie(b).genres()));
+        Set<String> union = new HashSet<>(first);
+        union.addAll(second);
+        long shared = second.stream().filter(first::contains).count();
+        return (float) shared / union.size();
+    }
+
+    @Test
+    @DisplayName("Test incremental MMR picks the same items as textbook MMR")
+    public void testMatchesNaiveMmr() {
+        Random random = new Random(31);
+        for (int round = 0; round < 30; round++) {
+            MovieCatalog catalog = TestCatalogs.randomCatalog(random, 200, 2 + random.nextInt(10));
+            int count = 1 + random.nextInt(60);
+            int[] ordinals = random.ints(0, catalog.size()).distinct().limit(count).toArray();
+            float[] scores = new float[count];
+            for (int i = 0; i < count; i++) {
+                scores[i] = random.nextInt(20) - 5;
+            }
+            float lambda = random.nextFloat();
+            int k = 1 + random.nextInt(15);
+
+            DiversityReranker reranker = new DiversityReranker(catalog, lambda);
+            assertArrayEquals(naiveMmr(catalog, ordinals, scores, k, lambda),
+                    reranker.rerank(ordinals, scores, count, k), "round " + round);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a lower-scored movie of another genre is pulled up")
+    public void testPromotesOtherGenre() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Drama One", "D001", new String[]{"Drama"}),
+                new Movie("Drama Two", "D002", new String[]{"Drama"}),
+                new Movie("Drama Three", "D003", new String[]{"Drama"}),
+                new Movie("Comedy One", "C004", new String[]{"Comedy"})));
+        int[] ordinals = {0, 1, 2, 3};
+        float[] scores = {10, 9, 8, 5};
+
+        assertArrayEquals(new int[]{0, 3, 1}, new DiversityReranker(catalog, 0.5f).rerank(ordinals, scores, 4, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, new DiversityReranker(catalog, 1f).rerank(ordinals, scores, 4, 3));
+    }
+
+    @Test
+    @DisplayName("Test lambda 1 keeps the plain top-K order")
+    public void testRelevanceOnlyKeepsTopK() {
+        Random random = new Random(37);
+        MovieCatalog catalog = TestCatalogs.randomCatalog(random, 300, 12);
+        DiversityReranker relevanceOnly = new DiversityReranker(catalog, 1f);
+        Blender plain = new Blender(catalog).add(new GenreOverlapScorer(), 1f);
+        Blender reranked = new Blender(catalog).add(new GenreOverlapScorer(), 1f).diversify(relevanceOnly);
+
+        for (int trial = 0; trial < 20; trial++) {
+            Set<String> watched = Set.of("MV" + random.nextInt(300), "MV" + random.nextInt(300));
+            assertArrayEquals(Recommendation.recommendTopOrdinals(catalog, watched, 10, null),
+                    Recommendation.recommendTopOrdinals(catalog, watched, 10, null, null, relevanceOnly));
+            CompressedBitmap bitmap = catalog.ordinalsOf(watched);
+            assertArrayEquals(plain.recommend(bitmap, 10), reranked.recommend(bitmap, 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Test invalid lambda or pool factor is rejected")
+    public void testInvalidParameters() {
+        MovieCatalog catalog = MovieCatalog.of(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> new DiversityReranker(catalog, 1.5f));
+        assertThrows(IllegalArgumentException.class, () -> new DiversityReranker(catalog, Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new DiversityReranker(catalog, 0.5f, 0));
+    }
+}
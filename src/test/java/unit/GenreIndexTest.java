@@ -0,0 +1,46 @@
+package unit;
+
+import logic.GenreIndex;
+import model.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenreIndexTest {
+
+    private final List<Movie> movies = List.of(
+            new Movie("ActionOne", "AO123", new String[]{"Action"}),
+            new Movie("DramaOne", "DO456", new String[]{"Drama"}),
+            new Movie("Mixed", "M789", new String[]{"Action", "Drama", "Action"}),
+            new Movie("NoGenre", "NG001", new String[]{})
+    );
+
+    @Test
+    @DisplayName("Test posting bitmaps hold the movie ordinals per genre")
+    public void testPostingsSorted() {
+        GenreIndex index = GenreIndex.build(movies);
+
+        assertArrayEquals(new int[]{0, 2}, index.postings("Action").toArray());
+        assertArrayEquals(new int[]{1, 2}, index.postings("Drama").toArray());
+        assertEquals(2, index.genreCount());
+        assertEquals(4, index.movieCount());
+    }
+
+    @Test
+    @DisplayName("Test unknown genre has an empty posting list")
+    public void testUnknownGenre() {
+        GenreIndex index = GenreIndex.build(movies);
+
+        assertTrue(index.postings("Horror").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test index over an empty or null catalog")
+    public void testEmptyCatalog() {
+        assertEquals(0, GenreIndex.build(List.of()).genreCount());
+        assertEquals(0, GenreIndex.build(null).movieCount());
+    }
+}
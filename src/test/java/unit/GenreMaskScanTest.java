@@ -0,0 +1,92 @@
+package unit;
+
+import logic.Blender;
+import logic.CompressedBitmap;
+import logic.GenreMaskScan;
+import logic.GenreOverlapScorer;
+import logic.MovieCatalog;
+import logic.SimdGenreScorer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenreMaskScanTest {
+
+    // Reference result: movies sharing a genre with the mask, by the catalog API
+    private static int[] expected(MovieCatalog catalog, long[] liked) {
+        int[] out = new int[catalog.size()];
+        int size = 0;
+        for (int m = 0; m < catalog.size(); m++) {
+            if (catalog.sharesGenre(m, liked)) {
+                out[size++] = m;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static void assertScansAgree(MovieCatalog catalog, long seed) {
+        Random random = new Random(seed);
+        int[] buffer = new int[catalog.size()];
+        for (int trial = 0; trial < 20; trial++) {
+            long[] liked = catalog.newGenreMask();
+            for (int pick = 0; pick < 1 + random.nextInt(4); pick++) {
+                catalog.orGenreMask(random.nextInt(catalog.size()), liked);
+            }
+            int[] expected = expected(catalog, liked);
+
+            int count = GenreMaskScan.matching(catalog, liked, buffer);
+            assertArrayEquals(expected, Arrays.copyOf(buffer, count));
+            count = GenreMaskScan.matchingScalar(catalog, liked, buffer);
+            assertArrayEquals(expected, Arrays.copyOf(buffer, count));
+        }
+    }
+
+    @Test
+    @DisplayName("Test scan matches the catalog with one mask word")
+    public void testSingleWordMasks() {
+        assertScansAgree(TestCatalogs.randomCatalog(new Random(1L), 1003, 20), 2L);
+    }
+
+    @Test
+    @DisplayName("Test scan matches the catalog with two mask words")
+    public void testTwoWordMasks() {
+        MovieCatalog catalog = TestCatalogs.randomCatalog(new Random(3L), 517, 120);
+        assertEquals(2, catalog.maskWords());
+        assertScansAgree(catalog, 4L);
+    }
+
+    @Test
+    @DisplayName("Test scan matches the catalog when words do not divide the lanes")
+    public void testThreeWordMasks() {
+        MovieCatalog catalog = TestCatalogs.randomCatalog(new Random(5L), 301, 190);
+        assertEquals(3, catalog.maskWords());
+        assertScansAgree(catalog, 6L);
+    }
+
+    @Test
+    @DisplayName("Test an empty liked mask matches nothing")
+    public void testEmptyMask() {
+        MovieCatalog catalog = TestCatalogs.randomCatalog(new Random(7L), 100, 10);
+
+        assertEquals(0, GenreMaskScan.matching(catalog, catalog.newGenreMask(), new int[catalog.size()]));
+    }
+
+    @Test
+    @DisplayName("Test the SIMD scorer ranks like the posting-based scorer")
+    public void testSimdScorerMatchesGenreOverlap() {
+        MovieCatalog catalog = TestCatalogs.randomCatalog(new Random(8L), 2000, 25);
+        Blender postings = new Blender(catalog).add(new GenreOverlapScorer(), 1f);
+        Blender simd = new Blender(catalog).add(new SimdGenreScorer(catalog), 1f);
+
+        Random random = new Random(9);
+        for (int trial = 0; trial < 30; trial++) {
+            int[] watched = random.ints(1 + random.nextInt(5), 0, catalog.size()).distinct().sorted().toArray();
+            CompressedBitmap bitmap = CompressedBitmap.of(watched);
+            assertArrayEquals(postings.recommend(bitmap, 20), simd.recommend(bitmap, 20));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package unit;
+
+import logic.GenreProfileCache;
+import logic.MovieCatalog;
+import logic.Recommendation;
+import model.Movie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenreProfileCacheTest {
+
+    static MovieCatalog catalog;
+
+    @BeforeAll
+    public static void init() {
+        catalog = MovieCatalog.of(List.of(
+                new Movie("ActionOne", "AO123", new String[]{"Action"}),
+                new Movie("ActionTwo", "AT321", new String[]{"Action"}),
+                new Movie("DramaOne", "DO456", new String[]{"Drama"}),
+                new Movie("DramaTwo", "DT654", new String[]{"Drama"}),
+                new Movie("Mixed", "M789", new String[]{"Action", "Drama"})
+        ));
+    }
+
+    @Test
+    @DisplayName("Test users with the same liked genres hit the cache")
+    public void testHitsAndMisses() {
+        GenreProfileCache cache = new GenreProfileCache(catalog, 8);
+
+        Set<String> first = Recommendation.recommendMovies(catalog, Set.of("AO123"), cache);
+        Set<String> second = Recommendation.recommendMovies(catalog, Set.of("AT321"), cache);
+
+        assertEquals(Set.of("ActionTwo", "Mixed"), first);
+        assertEquals(Set.of("ActionOne", "Mixed"), second);
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @DisplayName("Test cached results equal uncached results")
+    public void testSameAsUncached() {
+        GenreProfileCache cache = new GenreProfileCache(catalog, 8);
+
+        for (Set<String> watched : List.of(Set.of("AO123", "DO456"), Set.of("M789"), Set.of("DT654"), Set.of("XX000"))) {
+            assertEquals(Recommendation.recommendMovies(catalog, watched),
+                    Recommendation.recommendMovies(catalog, watched, cache));
+            assertEquals(Recommendation.recommendTopMovies(catalog, watched, 3),
+                    Recommendation.recommendTopMovies(catalog, watched, 3, cache));
+        }
+    }
+
+    @Test
+    @DisplayName("Test least recently used profile is evicted")
+    public void testLruEviction() {
+        GenreProfileCache cache = new GenreProfileCache(catalog, 1);
+
+        Recommendation.recommendMovies(catalog, Set.of("AO123"), cache); // Action: miss
+        Recommendation.recommendMovies(catalog, Set.of("DO456"), cache); // Drama: miss, evicts Action
+        Recommendation.recommendMovies(catalog, Set.of("AT321"), cache); // Action: miss again
+
+        assertEquals(3, cache.misses());
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.evictions());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test cache size below one is rejected")
+    public void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new GenreProfileCache(catalog, 0));
+    }
+}
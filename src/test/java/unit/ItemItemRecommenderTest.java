@@ -0,0 +1,121 @@
+package unit;
+
+import logic.CompressedBitmap;
+import logic.ItemItemRecommender;
+import logic.MovieCatalog;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemItemRecommenderTest {
+
+    static MovieCatalog catalog;
+    static List<User> users;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        catalog = MovieCatalog.of(List.of(
+                new Movie("Alpha", "A001", new String[]{"Action"}),
+                new Movie("Beta", "B002", new String[]{"Drama"}),
+                new Movie("Gamma", "G003", new String[]{"Comedy"}),
+                new Movie("Delta", "D004", new String[]{"Horror"})
+        ));
+        users = List.of(
+                new User("One", "111111111", Set.of("A001", "B002")),
+                new User("Two", "222222222", Set.of("A001", "B002")),
+                new User("Three", "333333333", Set.of("A001", "G003")),
+                new User("Four", "444444444", Set.of("D004"))
+        );
+    }
+
+    @Test
+    @DisplayName("Test cosine neighbours from co-watch counts")
+    public void testCosineNeighbors() {
+        ItemItemRecommender model = ItemItemRecommender.build(catalog, users, 10,
+                ItemItemRecommender.Similarity.COSINE, 1);
+
+        // Alpha watched by 3, Beta by 2 together twice; Gamma by 1 together once
+        assertArrayEquals(new int[]{1, 2}, model.neighbors(0));
+        assertEquals(2 / Math.sqrt(6), model.similarities(0)[0], 1e-6);
+        assertEquals(1 / Math.sqrt(3), model.similarities(0)[1], 1e-6);
+        assertEquals(0, model.neighbors(3).length);
+    }
+
+    @Test
+    @DisplayName("Test Jaccard normalization and top-N cut")
+    public void testJaccardTopN() {
+        ItemItemRecommender model = ItemItemRecommender.build(catalog, users, 1,
+                ItemItemRecommender.Similarity.JACCARD, 2);
+
+        assertArrayEquals(new int[]{1}, model.neighbors(0));
+        assertEquals(2f / 3f, model.similarities(0)[0], 1e-6);
+    }
+
+    @Test
+    @DisplayName("Test user recommendations aggregate watched movies' neighbours")
+    public void testRecommend() {
+        ItemItemRecommender model = ItemItemRecommender.build(catalog, users, 10,
+                ItemItemRecommender.Similarity.COSINE, 1);
+
+        assertArrayEquals(new int[]{1, 2}, model.recommend(CompressedBitmap.of(0), 10));
+        assertArrayEquals(new int[]{2}, model.recommend(CompressedBitmap.of(0, 1), 10));
+        assertEquals(0, model.recommend(CompressedBitmap.of(3), 10).length);
+    }
+
+    @Test
+    @DisplayName("Test sharded build equals single-shard build")
+    public void testShardedBuildMatchesSingle() {
+        Random random = new Random(3);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i, new String[]{"Drama"}));
+        }
+        MovieCatalog large = MovieCatalog.of(movies);
+        List<User> many = new ArrayList<>();
+        for (int u = 0; u < 500; u++) {
+            many.add(new User("User", String.valueOf(u),
+                    new HashSet<>(List.of("MV" + random.nextInt(60), "MV" + random.nextInt(60),
+                            "MV" + random.nextInt(60)))));
+        }
+
+        ItemItemRecommender single = ItemItemRecommender.build(large, many, 5,
+                ItemItemRecommender.Similarity.COSINE, 1);
+        ItemItemRecommender sharded = ItemItemRecommender.build(large, many, 5,
+                ItemItemRecommender.Similarity.COSINE, 8);
+
+        for (int m = 0; m < large.size(); m++) {
+            assertArrayEquals(single.neighbors(m), sharded.neighbors(m));
+            assertArrayEquals(single.similarities(m), sharded.similarities(m));
+        }
+    }
+
+    @Test
+    @DisplayName("Test batch writes the plugged-in model's ranking")
+    public void testBatchUsesRecommender() throws IOException {
+        ItemItemRecommender model = ItemItemRecommender.build(catalog, users, 10,
+                ItemItemRecommender.Similarity.COSINE, 1);
+        Path out = tempDir.resolve("out.txt");
+
+        new RecommendationBatch(catalog).recommender(model).run(List.of(users.get(2)), out);
+
+        assertEquals(List.of("Three,333333333", "Beta"), Files.readAllLines(out));
+    }
+}
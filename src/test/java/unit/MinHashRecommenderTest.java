@@ -0,0 +1,92 @@
+package unit;
+
+import logic.CompressedBitmap;
+import logic.MinHashRecommender;
+import logic.MovieCatalog;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinHashRecommenderTest {
+
+    static MovieCatalog catalog;
+    static List<User> users;
+
+    @BeforeAll
+    public static void init() {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i, new String[]{"Drama"}));
+        }
+        catalog = MovieCatalog.of(movies);
+
+        // Two taste clusters: movies 0-4 and movies 5-9
+        users = new ArrayList<>();
+        for (int u = 0; u < 20; u++) {
+            users.add(new User("A", "1000000" + u, Set.of("MV0", "MV1", "MV2", "MV3")));
+            users.add(new User("B", "2000000" + u, Set.of("MV5", "MV6", "MV7", "MV8", "MV9")));
+        }
+        users.add(null);
+        users.add(new User("C", "300000000", Set.of()));
+    }
+
+    @Test
+    @DisplayName("Test neighbours from the same cluster drive the recommendations")
+    public void testRecommendsFromNearestCluster() {
+        MinHashRecommender model = MinHashRecommender.build(catalog, users, 64, 16, 5, 2, 11L);
+
+        int[] recs = model.recommend(CompressedBitmap.of(0, 1, 2), 5);
+
+        assertArrayEquals(new int[]{3}, recs);
+    }
+
+    @Test
+    @DisplayName("Test watched movies are never recommended")
+    public void testExcludesWatched() {
+        MinHashRecommender model = MinHashRecommender.build(catalog, users, 32, 8, 10, 1, 5L);
+
+        int[] recs = model.recommend(CompressedBitmap.of(5, 6, 7), 10);
+
+        assertArrayEquals(new int[]{8, 9}, recs);
+    }
+
+    @Test
+    @DisplayName("Test parallel build matches single-threaded build")
+    public void testParallelBuildDeterministic() {
+        MinHashRecommender single = MinHashRecommender.build(catalog, users, 64, 16, 5, 1, 42L);
+        MinHashRecommender parallel = MinHashRecommender.build(catalog, users, 64, 16, 5, 4, 42L);
+
+        for (int[] query : List.of(new int[]{0}, new int[]{1, 2}, new int[]{5, 9}, new int[]{0, 5})) {
+            assertArrayEquals(single.recommend(CompressedBitmap.of(query), 10),
+                    parallel.recommend(CompressedBitmap.of(query), 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Test an indexed user and identical users do not crowd out real neighbours")
+    public void testSkipsSelfAndIdenticalSets() {
+        List<User> indexed = new ArrayList<>();
+        for (int u = 0; u < 20; u++) {
+            indexed.add(new User("A", "1000000" + u, Set.of("MV0", "MV1", "MV2", "MV3")));
+        }
+        indexed.add(new User("D", "400000000", Set.of("MV0", "MV1", "MV2", "MV3", "MV4")));
+        MinHashRecommender model = MinHashRecommender.build(catalog, indexed, 64, 32, 1, 1, 3L);
+
+        assertArrayEquals(new int[]{4}, model.recommend(CompressedBitmap.of(0, 1, 2, 3), 5));
+    }
+
+    @Test
+    @DisplayName("Test bands must divide the signature width")
+    public void testInvalidBanding() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MinHashRecommender.build(catalog, users, 30, 7, 5, 1, 1L));
+    }
+}
@@ -0,0 +1,116 @@
+package unit;
+
+import logic.MovieCatalog;
+import logic.Recommendation;
+import model.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieCatalogTest {
+
+    private final List<Movie> movies = List.of(
+            new Movie("ActionOne", "AO123", new String[]{"Action"}),
+            new Movie("DramaOne", "DO456", new String[]{"Drama"}),
+            new Movie("ActionCopy", "AO123", new String[]{"Comedy"}),
+            new Movie("ComedyOne", "CO789", new String[]{"Comedy"})
+    );
+
+    @Test
+    @DisplayName("Test movie ID resolves to its ordinal")
+    public void testOrdinalLookup() {
+        MovieCatalog catalog = MovieCatalog.of(movies);
+
+        assertEquals(1, catalog.ordinalOf("DO456"));
+        assertEquals(-1, catalog.ordinalOf("XX000"));
+        assertEquals("DramaOne", catalog.movie(1).title());
+        assertEquals(4, catalog.size());
+    }
+
+    @Test
+    @DisplayName("Test duplicate IDs are chained in ordinal order")
+    public void testDuplicateIdChain() {
+        MovieCatalog catalog = MovieCatalog.of(movies);
+
+        assertEquals(0, catalog.ordinalOf("AO123"));
+        assertEquals(2, catalog.nextWithSameId(0));
+        assertEquals(-1, catalog.nextWithSameId(2));
+    }
+
+    @Test
+    @DisplayName("Test catalog overload matches the List<Movie> overload")
+    public void testCatalogOverloadMatchesList() {
+        MovieCatalog catalog = MovieCatalog.of(movies);
+        Set<String> watched = Set.of("AO123");
+
+        assertEquals(Recommendation.recommendMovies(watched, movies),
+                Recommendation.recommendMovies(catalog, watched));
+        assertEquals(Set.of("ComedyOne"), Recommendation.recommendMovies(catalog, watched));
+    }
+
+    @Test
+    @DisplayName("Test null catalog input yields an empty catalog")
+    public void testNullMovies() {
+        assertTrue(MovieCatalog.of(null).isEmpty());
+        assertTrue(Recommendation.recommendMovies(MovieCatalog.of(null), Set.of("AO123")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test genre masks span several words past 64 genres")
+    public void testMultiWordGenreMasks() {
+        List<Movie> many = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            many.add(new Movie("Movie" + i, "M" + i, new String[]{"Genre" + i}));
+        }
+        many.add(new Movie("Late", "L001", new String[]{"Genre69"}));
+        MovieCatalog catalog = MovieCatalog.of(many);
+
+        assertEquals(2, catalog.maskWords());
+
+        long[] liked = catalog.newGenreMask();
+        catalog.orGenreMask(catalog.ordinalOf("M69"), liked);
+        assertTrue(catalog.sharesGenre(catalog.ordinalOf("L001"), liked));
+        assertFalse(catalog.sharesGenre(catalog.ordinalOf("M3"), liked));
+        assertEquals(Set.of("Late"), Recommendation.recommendMovies(catalog, Set.of("M69")));
+    }
+
+    @Test
+    @DisplayName("Test an extended catalog indexes like one built from all its movies")
+    public void testExtendMatchesFullBuild() {
+        List<Movie> all = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            // every seventh ID and every fifth title repeat an earlier one; genres grow past 64
+            all.add(new Movie(i % 5 == 4 ? "Movie" + (i / 10) : "Movie" + i, "MV" + (i % 7 == 6 ? i / 3 : i),
+                    new String[]{"Genre" + (i * 31 % (10 + i / 4)), "Genre" + (i % 6)}));
+        }
+        MovieCatalog indexed = MovieCatalog.of(all.subList(0, 120));
+        // built ID and title indexes are carried over twice; the other extension builds them lazily
+        indexed.ordinalOf("MV0");
+        Recommendation.recommendTopMovies(indexed, Set.of("MV0"), 1);
+        MovieCatalog twice = indexed.extend(all.subList(120, 200)).extend(all.subList(200, 300));
+        MovieCatalog once = MovieCatalog.of(all.subList(0, 120)).extend(all.subList(120, 300));
+        MovieCatalog full = MovieCatalog.of(all);
+
+        assertEquals(120, indexed.size());
+        for (MovieCatalog catalog : List.of(twice, once)) {
+            assertEquals(full.size(), catalog.size());
+            assertEquals(full.maskWords(), catalog.maskWords());
+            for (int code = 0; code < full.genreIndex().genreCount(); code++) {
+                String genre = full.genres().name(code);
+                assertEquals(full.genreIndex().postings(genre), catalog.genreIndex().postings(genre), genre);
+            }
+            for (int i = 0; i < all.size(); i++) {
+                Set<String> watched = new HashSet<>(List.of("MV" + i, "MV" + (i * 7 % 300)));
+                assertArrayEquals(full.ordinalsOf(watched).toArray(), catalog.ordinalsOf(watched).toArray());
+                assertEquals(Recommendation.recommendTopMovies(full, watched, 15),
+                        Recommendation.recommendTopMovies(catalog, watched, 15));
+            }
+        }
+    }
+}
@@ -403,4 +403,101 @@ public class ParserTest {
         assertEquals("The Matrix", movies.get(2).title());
         assertEquals("Pulp Fiction", movies.get(3).title());
     }
-}
\ No newline at end of file
+
+    // ===================== MAPPED SCANNING TESTS =====================
+    @Test
+    @DisplayName("Test CRLF, CR and a missing final newline end lines like readLine")
+    public void testReadMovies_MixedLineEndings() throws Exception {
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile, "Alien, A1\r\nHorror, Sci-Fi\r\rHeat, H2\rCrime\nUp, U3\nAnimation");
+
+        List<Movie> movies = movieParser.readMovies(movieFile.toString());
+
+        assertEquals(3, movies.size());
+        assertArrayEquals(new String[]{"Horror", "Sci-Fi"}, movies.get(0).genres());
+        assertEquals("Heat", movies.get(1).title());
+        assertArrayEquals(new String[]{"Crime"}, movies.get(1).genres());
+        assertEquals("U3", movies.get(2).id());
+        assertArrayEquals(new String[]{"Animation"}, movies.get(2).genres());
+    }
+
+    @Test
+    @DisplayName("Test trailing empty fields are dropped as by split")
+    public void testReadMovies_TrailingEmptyFields() throws Exception {
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile,
+                """
+                        Alien, A1,,
+                        Horror, , Sci-Fi,,
+                        Heat,H2
+                        ,,
+                        """);
+
+        List<Movie> movies = movieParser.readMovies(movieFile.toString());
+
+        assertEquals(2, movies.size());
+        assertEquals("A1", movies.get(0).id());
+        assertArrayEquals(new String[]{"Horror", "", "Sci-Fi"}, movies.get(0).genres());
+        assertEquals(0, movies.get(1).genres().length);
+    }
+
+    @Test
+    @DisplayName("Test an empty ID field is a wrong movie line format")
+    public void testReadMovies_EmptyIdField() throws Exception {
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile, "Alien,,A1\nHorror\n");
+
+        Exception exception = assertThrows(Exception.class, () -> movieParser.readMovies(movieFile.toString()));
+
+        assertEquals("ERROR: Wrong movie line format: Alien,,A1", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Test UTF-8 titles and repeated genres decode correctly")
+    public void testReadMovies_Utf8() throws Exception {
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile, "Amélie, AM1\nComédie, Romance\nLéon, LE2\nComédie\n");
+
+        List<Movie> movies = movieParser.readMovies(movieFile.toString());
+
+        assertEquals("Amélie", movies.get(0).title());
+        assertEquals("Léon", movies.get(1).title());
+        assertSame(movies.get(0).genres()[0], movies.get(1).genres()[0]);
+        assertEquals("Comédie", movies.get(1).genres()[0]);
+    }
+
+    @Test
+    @DisplayName("Test small mapping windows read the same movies as one mapping")
+    public void testReadMovies_SmallWindows() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String eol = i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n";
+            content.append("Movie ").append(i).append(", M").append(i).append(eol)
+                    .append("Genre").append(i % 7).append(", Drama").append(eol);
+            if (i % 5 == 0) content.append(eol);
+        }
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile, content);
+
+        List<Movie> expected = movieParser.readMovies(movieFile.toString());
+        for (int window : new int[]{24, 25, 31, 64}) {
+            List<Movie> actual = new MovieFileParser(window).readMovies(movieFile.toString());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).title(), actual.get(i).title());
+                assertEquals(expected.get(i).id(), actual.get(i).id());
+                assertArrayEquals(expected.get(i).genres(), actual.get(i).genres());
+            }
+        }
+        assertEquals(200, expected.size());
+    }
+
+    @Test
+    @DisplayName("Test a line longer than the mapping window is rejected")
+    public void testReadMovies_LineLongerThanWindow() throws Exception {
+        Path movieFile = tempDir.resolve("movies.txt");
+        Files.writeString(movieFile, "A rather long title, ID1\nDrama\nX, Y\nZ\n");
+
+        assertThrows(Exception.class, () -> new MovieFileParser(8).readMovies(movieFile.toString()));
+    }
+}
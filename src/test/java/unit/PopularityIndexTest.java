@@ -0,0 +1,150 @@
+package unit;
+
+import logic.CompressedBitmap;
+import logic.MovieCatalog;
+import logic.PopularityIndex;
+import logic.Recommendation;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularityIndexTest {
+
+    static MovieCatalog catalog;
+    static List<User> users;
+    static PopularityIndex popularity;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror"}),
+                new Movie("Brazil", "B002", new String[]{"Comedy"}),
+                new Movie("Casablanca", "C003", new String[]{"Drama"}),
+                new Movie("Dune", "D004", new String[]{"SciFi", "Drama"}),
+                new Movie("Eraserhead", "E005", new String[]{"Horror"})));
+
+        // Watch counts: Dune 3, Brazil 2, Alien 1, others 0
+        users = new ArrayList<>();
+        users.add(new User("Ann", "10000000A", Set.of("D004", "B002")));
+        users.add(new User("Bob", "20000000B", Set.of("D004", "B002", "A001")));
+        users.add(new User("Cat", "30000000C", Set.of("D004", "UNKNOWN")));
+        users.add(null);
+        popularity = PopularityIndex.build(catalog, users);
+    }
+
+    @Test
+    @DisplayName("Test the global ranking orders by watch count, then catalog order")
+    public void testGlobalRanking() {
+        assertArrayEquals(new int[]{3, 1, 0, 2, 4}, popularity.mostPopular(10));
+        assertArrayEquals(new int[]{3, 1}, popularity.mostPopular(2));
+        assertEquals(3, popularity.watchCount(3));
+        assertEquals(0, popularity.watchCount(4));
+    }
+
+    @Test
+    @DisplayName("Test per-genre rankings follow the global ranking")
+    public void testGenreRanking() {
+        int horror = catalog.genres().codeOf("Horror");
+        int drama = catalog.genres().codeOf("Drama");
+
+        assertArrayEquals(new int[]{0, 4}, popularity.mostPopular(horror, 5));
+        assertArrayEquals(new int[]{3, 2}, popularity.mostPopular(drama, 5));
+    }
+
+    @Test
+    @DisplayName("Test top-up skips watched and already recommended movies")
+    public void testTopUpSkipsWatchedAndDuplicates() {
+        int[] result = popularity.topUp(new int[]{2}, CompressedBitmap.of(3), null, 3);
+
+        assertArrayEquals(new int[]{2, 1, 0}, result);
+    }
+
+    @Test
+    @DisplayName("Test top-up prefers liked genres before the global ranking")
+    public void testTopUpPrefersLikedGenres() {
+        long[] likedGenres = catalog.newGenreMask();
+        catalog.orGenreMask(0, likedGenres); // Horror
+
+        int[] result = popularity.topUp(new int[0], CompressedBitmap.of(0), likedGenres, 3);
+
+        assertArrayEquals(new int[]{4, 3, 1}, result);
+    }
+
+    @Test
+    @DisplayName("Test a full list is returned unchanged")
+    public void testTopUpNoOpWhenFull() {
+        int[] full = {4, 2};
+
+        assertSame(full, popularity.topUp(full, CompressedBitmap.EMPTY, null, 2));
+    }
+
+    @Test
+    @DisplayName("Test unknown watched IDs fall back to popular movies")
+    public void testUnknownIdsFallBack() {
+        List<String> withFallback = Recommendation.recommendTopMovies(catalog, Set.of("NOPE1"), 2, null, popularity);
+        List<String> without = Recommendation.recommendTopMovies(catalog, Set.of("NOPE1"), 2);
+
+        assertEquals(List.of("Dune", "Brazil"), withFallback);
+        assertTrue(without.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test the batch writer tops up short lists")
+    public void testBatchFallback() throws IOException {
+        Path out = tempDir.resolve("out.txt");
+
+        new RecommendationBatch(catalog).topK(3).popularityFallback(popularity)
+                .run(List.of(new User("Zed", "40000000Z", Set.of("B002"))), out);
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals("Zed,40000000Z", lines.get(0));
+        assertEquals("Dune,Alien,Casablanca", lines.get(1));
+    }
+
+    @Test
+    @DisplayName("Test the unbounded writer fills empty lists with popular movies")
+    public void testUnboundedEmptyFallback() throws IOException {
+        Path out = tempDir.resolve("out.txt");
+        Path plain = tempDir.resolve("plain.txt");
+        List<User> batch = List.of(
+                new User("Lost", "40000000L", Set.of("ZZZ")),
+                new User("Seen", "50000000S", Set.of("D004", "C003")),
+                new User("Fan", "60000000F", Set.of("A001")));
+
+        new RecommendationBatch(catalog).popularityFallback(popularity, 2).run(batch, out);
+        new RecommendationBatch(catalog).run(batch, plain);
+
+        // only the empty lists change: Fan still gets the other horror title alone
+        assertEquals(List.of("Lost,40000000L", "Dune,Brazil", "Seen,50000000S", "Brazil,Alien",
+                "Fan,60000000F", "Eraserhead"), Files.readAllLines(out));
+        assertEquals(List.of("Lost,40000000L", "", "Seen,50000000S", "", "Fan,60000000F", "Eraserhead"),
+                Files.readAllLines(plain));
+    }
+
+    @Test
+    @DisplayName("Test an index from watch counts ranks like one built from users")
+    public void testFromCounts() {
+        PopularityIndex fromCounts = PopularityIndex.fromCounts(catalog, new int[]{1, 2, 0, 3, 0});
+
+        assertArrayEquals(popularity.mostPopular(10), fromCounts.mostPopular(10));
+        assertArrayEquals(popularity.mostPopular(catalog.genres().codeOf("Drama"), 10),
+                fromCounts.mostPopular(catalog.genres().codeOf("Drama"), 10));
+        assertThrows(IllegalArgumentException.class, () -> PopularityIndex.fromCounts(catalog, new int[2]));
+    }
+}
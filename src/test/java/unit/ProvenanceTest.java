@@ -0,0 +1,73 @@
+package unit;
+
+import logic.CompressedBitmap;
+import logic.MovieCatalog;
+import logic.PopularityIndex;
+import logic.Recommendation;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProvenanceTest {
+
+    static MovieCatalog catalog;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror", "SciFi"}),
+                new Movie("Brazil", "B002", new String[]{"Comedy"}),
+                new Movie("Carrie", "C003", new String[]{"Horror"}),
+                new Movie("Dune", "D004", new String[]{"SciFi", "Horror"}),
+                new Movie("Eraser", "E005", new String[]{"Action"}),
+                new Movie("Fargo", "F006", new String[]{"Comedy", "Crime"})));
+    }
+
+    @Test
+    @DisplayName("Test each recommendation points at the watched movie sharing most genres")
+    public void testStrongestGenreMatch() {
+        // Dune shares two genres with Alien, Carrie one; Fargo matches Brazil; Eraser matches nothing
+        int[] because = Recommendation.becauseWatched(catalog, CompressedBitmap.of(0, 1), new int[]{3, 2, 5, 4});
+
+        assertArrayEquals(new int[]{0, 0, 1, -1}, because);
+    }
+
+    @Test
+    @DisplayName("Test ties go to the lowest watched ordinal")
+    public void testTieBreak() {
+        int[] because = Recommendation.becauseWatched(catalog, CompressedBitmap.of(2, 3), new int[]{0});
+
+        assertArrayEquals(new int[]{3}, because);
+    }
+
+    @Test
+    @DisplayName("Test the batch writes an aligned provenance line only when asked")
+    public void testBatchExplainLine() throws IOException {
+        List<User> users = List.of(new User("Ann", "10000000A", Set.of("A001", "B002")));
+        Path plain = tempDir.resolve("plain.txt");
+        Path explained = tempDir.resolve("explained.txt");
+        PopularityIndex popularity = PopularityIndex.build(catalog, List.of());
+
+        new RecommendationBatch(catalog).topK(4).popularityFallback(popularity).run(users, plain);
+        new RecommendationBatch(catalog).topK(4).popularityFallback(popularity).explain(true).run(users, explained);
+
+        assertEquals(List.of("Ann,10000000A", "Dune,Carrie,Fargo,Eraser"), Files.readAllLines(plain));
+        assertEquals(List.of("Ann,10000000A", "Dune,Carrie,Fargo,Eraser", "Alien,Alien,Brazil,"),
+                Files.readAllLines(explained));
+    }
+}
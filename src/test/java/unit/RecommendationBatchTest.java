@@ -0,0 +1,179 @@
+package unit;
+
+import logic.MinHashRecommender;
+import logic.MovieCatalog;
+import logic.RecommendationBatch;
+import logic.ResolvedUser;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MovieCatalog catalog;
+    private List<User> users;
+
+    @BeforeEach
+    public void init() {
+        String[] genres = {"Action", "Drama", "Comedy", "Horror", "Romance"};
+        Random random = new Random(42);
+
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            movies.add(new Movie("Movie" + i, "MV" + i,
+                    new String[]{genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)]}));
+        }
+        catalog = MovieCatalog.of(movies);
+
+        users = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            if (i % 100 == 0) {
+                users.add(null); // skipped
+            } else if (i % 97 == 0) {
+                users.add(new User("Empty User", String.valueOf(i), Set.of())); // skipped
+            } else {
+                users.add(new User("User", String.valueOf(i),
+                        Set.of("MV" + random.nextInt(200), "MV" + (200 + i))));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test fork/join output is identical to the sequential output")
+    public void testForkJoinPreservesOrder() throws IOException {
+        Path sequential = tempDir.resolve("sequential.txt");
+        Path parallel = tempDir.resolve("parallel.txt");
+
+        RecommendationBatch.BatchStats seqStats = new RecommendationBatch(catalog).run(users, sequential);
+        RecommendationBatch.BatchStats parStats = new RecommendationBatch(catalog,
+                RecommendationBatch.Mode.FORK_JOIN, 4).run(users, parallel);
+
+        assertEquals(Files.readString(sequential), Files.readString(parallel));
+        assertEquals(seqStats.written(), parStats.written());
+        assertEquals(1500, parStats.users());
+    }
+
+    @Test
+    @DisplayName("Test virtual-thread output is identical to the sequential output")
+    public void testVirtualThreadsPreserveOrder() throws IOException {
+        Path sequential = tempDir.resolve("sequential.txt");
+        Path virtual = tempDir.resolve("virtual.txt");
+
+        new RecommendationBatch(catalog).run(users, sequential);
+        RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog,
+                RecommendationBatch.Mode.VIRTUAL_THREADS, 16).run(users, virtual);
+
+        assertEquals(Files.readString(sequential), Files.readString(virtual));
+        assertEquals(1500, stats.users());
+    }
+
+    @Test
+    @DisplayName("Test a recommender gives the same output on virtual threads")
+    public void testVirtualThreadsWithRecommender() throws IOException {
+        MinHashRecommender model = MinHashRecommender.build(catalog, users, 64, 32, 5, 2, 9L);
+        Path sequential = tempDir.resolve("sequential.txt");
+        Path virtual = tempDir.resolve("virtual.txt");
+
+        new RecommendationBatch(catalog).recommender(model).topK(10).run(users, sequential);
+        // 3 permits over 1500 users: chunks of 256 users share one thread's scratch
+        RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog,
+                RecommendationBatch.Mode.VIRTUAL_THREADS, 3).recommender(model).topK(10).run(users, virtual);
+
+        assertEquals(Files.readString(sequential), Files.readString(virtual));
+        assertEquals(1500, stats.users());
+    }
+
+    @Test
+    @DisplayName("Test null users produce an empty file")
+    public void testNullUsers() throws IOException {
+        Path out = tempDir.resolve("out.txt");
+
+        RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog,
+                RecommendationBatch.Mode.FORK_JOIN, 2).run(null, out);
+
+        assertEquals("", Files.readString(out));
+        assertEquals(0, stats.written());
+    }
+
+    @Test
+    @DisplayName("Test parallelism below one is rejected")
+    public void testInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecommendationBatch(catalog, RecommendationBatch.Mode.FORK_JOIN, 0));
+    }
+
+    @Test
+    @DisplayName("Test streamed users give the same output as the user list")
+    public void testRunStreamingMatchesList() throws IOException {
+        Path fromList = tempDir.resolve("list.txt");
+        Path fromStream = tempDir.resolve("stream.txt");
+
+        RecommendationBatch.BatchStats listStats = new RecommendationBatch(catalog).run(users, fromList);
+        RecommendationBatch.BatchStats streamStats = new RecommendationBatch(catalog,
+                RecommendationBatch.Mode.FORK_JOIN, 4).runStreaming(users.stream(), fromStream);
+
+        assertEquals(Files.readString(fromList), Files.readString(fromStream));
+        assertEquals(listStats.written(), streamStats.written());
+        assertEquals(1500, streamStats.users());
+    }
+
+    @Test
+    @DisplayName("Test resolved users give the same output as the users they came from")
+    public void testRunResolvedMatchesUsers() throws IOException {
+        List<ResolvedUser> resolved = new ArrayList<>();
+        for (User u : users) {
+            if (u == null) {
+                resolved.add(null);
+                continue;
+            }
+            int unknown = (int) u.watchedMovies().stream().filter(id -> catalog.ordinalOf(id) < 0).count();
+            resolved.add(new ResolvedUser(u.name(), u.id(), catalog.ordinalsOf(u.watchedMovies()).toArray(),
+                    unknown));
+        }
+        // every watched ID unknown: still written, with an empty list
+        users.add(new User("Lost", "1501", Set.of("GHOST")));
+        resolved.add(new ResolvedUser("Lost", "1501", new int[0], 1));
+
+        for (int k : new int[]{0, 5}) {
+            Path fromUsers = tempDir.resolve("users" + k + ".txt");
+            Path fromResolved = tempDir.resolve("resolved" + k + ".txt");
+            new RecommendationBatch(catalog).topK(k).explain(k > 0).run(users, fromUsers);
+            RecommendationBatch.BatchStats stats = new RecommendationBatch(catalog,
+                    RecommendationBatch.Mode.FORK_JOIN, 4).topK(k).explain(k > 0)
+                    .runResolvedStreaming(resolved.stream(), fromResolved);
+
+            assertEquals(Files.readString(fromUsers), Files.readString(fromResolved));
+            assertTrue(Files.readString(fromResolved).contains("Lost,1501" + System.lineSeparator()));
+            assertEquals(1501, stats.users());
+        }
+    }
+
+    @Test
+    @DisplayName("Test an exception from the user stream ends the run")
+    public void testRunStreamingPropagatesStreamErrors() {
+        Path out = tempDir.resolve("out.txt");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new RecommendationBatch(catalog).runStreaming(users.stream().peek(u -> {
+                    if (u == users.get(700)) throw new IllegalArgumentException("ERROR: bad user");
+                }), out));
+
+        assertEquals("ERROR: bad user", exception.getMessage());
+    }
+}
@@ -0,0 +1,94 @@
+package unit;
+
+import logic.MovieCatalog;
+import logic.Recommendation;
+import logic.RecommendationCursor;
+import model.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationCursorTest {
+
+    private static int[] drain(RecommendationCursor cursor) {
+        List<Integer> out = new ArrayList<>();
+        cursor.forEachRemaining((int ordinal) -> out.add(ordinal));
+        return out.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    @DisplayName("Test score order yields the full ranking of recommendTopOrdinals")
+    public void testScoreOrderMatchesRanking() {
+        Random random = new Random(41);
+        MovieCatalog catalog = TestCatalogs.randomCatalog(random, 400, 15, 0, 9);
+        for (int trial = 0; trial < 30; trial++) {
+            Set<String> watched = Set.of("MV" + random.nextInt(400), "MV" + random.nextInt(400) + "x",
+                    "MV" + random.nextInt(400));
+            int[] ranking = Recommendation.recommendTopOrdinals(catalog, watched, catalog.size(), null);
+
+            assertArrayEquals(ranking,
+                    drain(RecommendationCursor.open(catalog, watched, RecommendationCursor.Order.SCORE, null)));
+        }
+    }
+
+    @Test
+    @DisplayName("Test catalog order yields the recommendMovies titles in ascending ordinals")
+    public void testCatalogOrderMatchesRecommendMovies() {
+        Random random = new Random(43);
+        MovieCatalog catalog = TestCatalogs.randomCatalog(random, 400, 15, 0, 9);
+        for (int trial = 0; trial < 30; trial++) {
+            Set<String> watched = Set.of("MV" + random.nextInt(400), "MV" + random.nextInt(400) + "x");
+            int[] ordinals = drain(RecommendationCursor.open(catalog, watched, RecommendationCursor.Order.CATALOG, null));
+
+            int[] sorted = ordinals.clone();
+            Arrays.sort(sorted);
+            assertArrayEquals(sorted, ordinals);
+            Set<String> titles = new HashSet<>();
+            for (int ordinal : ordinals) {
+                titles.add(catalog.movie(ordinal).title());
+            }
+            assertEquals(Recommendation.recommendMovies(catalog, watched), titles);
+        }
+    }
+
+    @Test
+    @DisplayName("Test writing stops at the limit and writes shared titles once")
+    public void testWriteTitles() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror"}),
+                new Movie("Carrie", "C002", new String[]{"Horror"}),
+                new Movie("Carrie", "C003", new String[]{"Horror"}),
+                new Movie("Dracula", "D004", new String[]{"Horror"})));
+        StringBuilder all = new StringBuilder();
+        StringBuilder two = new StringBuilder();
+
+        int written = RecommendationCursor.open(catalog, Set.of("A001"), RecommendationCursor.Order.CATALOG, null)
+                .writeTitles(all, Integer.MAX_VALUE);
+        RecommendationCursor.open(catalog, Set.of("A001"), RecommendationCursor.Order.CATALOG, null)
+                .writeTitles(two, 2);
+
+        assertEquals(2, written);
+        assertEquals("Carrie,Dracula", all.toString());
+        assertEquals("Carrie,Dracula", two.toString());
+    }
+
+    @Test
+    @DisplayName("Test an empty watched set gives an empty cursor")
+    public void testEmptyCursor() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(new Movie("Alien", "A001", new String[]{"Horror"})));
+        RecommendationCursor cursor = RecommendationCursor.open(catalog, Set.of(), RecommendationCursor.Order.SCORE, null);
+
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::nextInt);
+        assertFalse(RecommendationCursor.open(null, null, RecommendationCursor.Order.CATALOG, null).hasNext());
+    }
+}
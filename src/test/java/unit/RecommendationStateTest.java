@@ -0,0 +1,85 @@
+package unit;
+
+import logic.MovieCatalog;
+import logic.Recommendation;
+import logic.RecommendationState;
+import model.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationStateTest {
+
+    @Test
+    @DisplayName("Test incremental updates equal a full recomputation after every watch")
+    public void testDifferentialAgainstFullRecompute() {
+        Random random = new Random(17);
+        for (int round = 0; round < 20; round++) {
+            MovieCatalog catalog = TestCatalogs.randomCatalog(random, 50 + random.nextInt(200), 2 + random.nextInt(80), 7, 11);
+            Set<String> watched = new HashSet<>();
+            if (random.nextBoolean()) {
+                watched.add("MV" + random.nextInt(catalog.size()));
+            }
+            RecommendationState state = RecommendationState.of(catalog, watched);
+            assertEquals(Recommendation.recommendMovies(catalog, watched), state.recommendations());
+
+            for (int step = 0; step < 25; step++) {
+                String next = random.nextInt(10) == 0 ? "UNKNOWN" + step : "MV" + random.nextInt(catalog.size());
+                state.watch(next);
+                watched.add(next);
+
+                assertEquals(Recommendation.recommendMovies(catalog, watched), state.recommendations(),
+                        "round " + round + ", step " + step);
+            }
+            assertEquals(watched, state.watchedMovies());
+        }
+    }
+
+    @Test
+    @DisplayName("Test watching a movie of a liked genre only removes it")
+    public void testWatchWithinLikedGenre() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror"}),
+                new Movie("Bride", "B002", new String[]{"Horror"}),
+                new Movie("Carrie", "C003", new String[]{"Horror"})));
+        RecommendationState state = RecommendationState.of(catalog, Set.of("A001"));
+
+        assertTrue(state.watch("B002"));
+
+        assertEquals(Set.of("Carrie"), state.recommendations());
+        assertEquals(1, state.recommendedCount());
+    }
+
+    @Test
+    @DisplayName("Test repeated and unknown IDs leave the result unchanged")
+    public void testNoOpWatches() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror"}),
+                new Movie("Bride", "B002", new String[]{"Horror"})));
+        RecommendationState state = RecommendationState.of(catalog, Set.of("A001"));
+
+        assertFalse(state.watch("A001"));
+        assertFalse(state.watch("ZZZ99"));
+        assertFalse(state.watch(null));
+        assertEquals(Set.of("Bride"), state.recommendations());
+    }
+
+    @Test
+    @DisplayName("Test a state started from nothing matches recommendMovies")
+    public void testStartFromEmpty() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Alien", "A001", new String[]{"Horror"}),
+                new Movie("Brazil", "B002", new String[]{"Comedy", "Horror"})));
+        RecommendationState state = RecommendationState.of(catalog, null);
+
+        assertTrue(state.recommendations().isEmpty());
+        state.watch("A001");
+        assertEquals(Set.of("Brazil"), state.recommendations());
+    }
+}
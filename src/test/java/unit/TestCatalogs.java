@@ -0,0 +1,58 @@
+package unit;
+
+import logic.MovieCatalog;
+import model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random catalogs for the randomized tests. Movie i is titled "Movie" + i
+ * with ID "MV" + i and random genres "G0" to "G" + (genreCount - 1), unless
+ * it is chosen to share an ID or a title, as the parser allows.
+ */
+final class TestCatalogs {
+
+    private TestCatalogs() {
+    }
+
+    /**
+     * @return a catalog with unique titles and IDs and 1-3 genres per movie
+     */
+    static MovieCatalog randomCatalog(Random random, int movieCount, int genreCount) {
+        return randomCatalog(random, movieCount, genreCount, 0, 0);
+    }
+
+    /**
+     * @param sharedIdEvery    every movie whose index is a multiple of it takes
+     *                         the ID of the movie at half its index; 0 for none
+     * @param sharedTitleEvery every movie whose index is a multiple of it is
+     *                         titled "Remake"; 0 for none
+     * @return a catalog with 1-3 genres per movie
+     */
+    static MovieCatalog randomCatalog(Random random, int movieCount, int genreCount, int sharedIdEvery,
+                                      int sharedTitleEvery) {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < movieCount; i++) {
+            movies.add(randomMovie(random, i, genreCount, 3, sharedIdEvery, sharedTitleEvery));
+        }
+        return MovieCatalog.of(movies);
+    }
+
+    /**
+     * @param index     the movie's ordinal once in a catalog
+     * @param maxGenres most genres drawn for the movie, at least 1
+     * @see #randomCatalog(Random, int, int, int, int)
+     */
+    static Movie randomMovie(Random random, int index, int genreCount, int maxGenres, int sharedIdEvery,
+                             int sharedTitleEvery) {
+        String[] genres = new String[1 + random.nextInt(maxGenres)];
+        for (int g = 0; g < genres.length; g++) {
+            genres[g] = "G" + random.nextInt(genreCount);
+        }
+        String id = "MV" + (sharedIdEvery > 0 && index % sharedIdEvery == 0 ? index / 2 : index);
+        String title = sharedTitleEvery > 0 && index % sharedTitleEvery == 0 ? "Remake" : "Movie" + index;
+        return new Movie(title, id, genres);
+    }
+}
@@ -0,0 +1,107 @@
+package unit;
+
+import logic.MovieCatalog;
+import logic.PopularityIndex;
+import logic.Recommendation;
+import logic.RecommendationBatch;
+import model.Movie;
+import model.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKRecommendationTest {
+
+    static MovieCatalog catalog;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void init() {
+        catalog = MovieCatalog.of(List.of(
+                new Movie("WatchedAction", "WA001", new String[]{"Action"}),
+                new Movie("WatchedMixed", "WM002", new String[]{"Action", "Drama"}),
+                new Movie("ActionOnly", "AO003", new String[]{"Action"}),
+                new Movie("DramaOnly", "DO004", new String[]{"Drama"}),
+                new Movie("ActionDrama", "AD005", new String[]{"Drama", "Action"}),
+                new Movie("ActionTwo", "AT006", new String[]{"Action"}),
+                new Movie("Comedy", "CO007", new String[]{"Comedy"})
+        ));
+    }
+
+    @Test
+    @DisplayName("Test titles are ranked by weighted genre overlap")
+    public void testRankedByScore() {
+        // Action watched twice (weight 2), Drama once (weight 1)
+        List<String> top = Recommendation.recommendTopMovies(catalog, Set.of("WA001", "WM002"), 10);
+
+        assertEquals(List.of("ActionDrama", "ActionOnly", "ActionTwo", "DramaOnly"), top);
+    }
+
+    @Test
+    @DisplayName("Test result is cut at K")
+    public void testBoundedByK() {
+        List<String> top = Recommendation.recommendTopMovies(catalog, Set.of("WA001", "WM002"), 2);
+
+        assertEquals(List.of("ActionDrama", "ActionOnly"), top);
+    }
+
+    @Test
+    @DisplayName("Test unbounded top-K holds the same titles as recommendMovies")
+    public void testSameTitlesAsSet() {
+        Set<String> watched = Set.of("WM002");
+
+        assertEquals(Recommendation.recommendMovies(catalog, watched),
+                new HashSet<>(Recommendation.recommendTopMovies(catalog, watched, catalog.size())));
+    }
+
+    @Test
+    @DisplayName("Test non-positive K returns nothing")
+    public void testZeroK() {
+        assertTrue(Recommendation.recommendTopMovies(catalog, Set.of("WA001"), 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test batch writer honors K")
+    public void testBatchHonorsTopK() throws IOException {
+        Path out = tempDir.resolve("out.txt");
+        List<User> users = List.of(new User("John Doe", "123456789", Set.of("WA001", "WM002")));
+
+        new RecommendationBatch(catalog).topK(2).run(users, out);
+
+        assertEquals(List.of("John Doe,123456789", "ActionDrama,ActionOnly"), Files.readAllLines(out));
+    }
+
+    @Test
+    @DisplayName("Test a title shared by two movies is listed and counted once")
+    public void testDuplicateTitleCountsOnce() {
+        MovieCatalog remakes = MovieCatalog.of(List.of(
+                new Movie("WatchedAction", "WA001", new String[]{"Action"}),
+                new Movie("WatchedMixed", "WM002", new String[]{"Action", "Drama"}),
+                new Movie("Remake", "RE003", new String[]{"Action"}),
+                new Movie("ActionOnly", "AO004", new String[]{"Action"}),
+                new Movie("DramaOnly", "DO005", new String[]{"Drama"}),
+                new Movie("Remake", "RE006", new String[]{"Drama", "Action"})));
+        PopularityIndex popularity = PopularityIndex.build(remakes, List.of(
+                new User("Ann", "10000000A", Set.of("RE003", "RE006")),
+                new User("Bob", "20000000B", Set.of("RE006", "DO005"))));
+
+        // the remake scores 3 through RE006; RE003 (2) would otherwise take a second slot
+        assertEquals(List.of("Remake", "ActionOnly", "DramaOnly"),
+                Recommendation.recommendTopMovies(remakes, Set.of("WA001", "WM002"), 3));
+        // the popularity top-up skips a title already taken, too
+        assertEquals(List.of("Remake", "DramaOnly", "WatchedAction"),
+                Recommendation.recommendTopMovies(remakes, Set.of("NOPE"), 3, null, popularity));
+    }
+}
@@ -8,7 +8,10 @@ import org.junit.jupiter.api.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api. Assertions.*;
 import model.User;
 
@@ -311,4 +314,122 @@ public class UserFileParserTest {
         assertTrue(users.get(0).watchedMovies().isEmpty() ||
                 users.get(0).watchedMovies() == null);
     }
-}
\ No newline at end of file
+
+    // ===================== PARALLEL PARSING TESTS =====================
+
+    private static String generatedUsers(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String eol = i % 4 == 0 ? "\r\n" : i % 4 == 1 ? "\r" : "\n";
+            content.append(i % 6 == 0 ? " " : "").append("User ").append(i).append(", ").append(100000000 + i).append(eol);
+            if (i % 9 == 0) {
+                content.append(eol);
+            } else {
+                content.append("M").append(i % 13).append(", ,M").append(i % 5).append(",").append(eol);
+            }
+            if (i % 7 == 0) content.append("   ").append(eol);
+        }
+        return content.toString();
+    }
+
+    @Test
+    @DisplayName("Test parallel parsing matches sequential parsing for any chunk size")
+    public void testReadUsersParallel_MatchesSequential() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, generatedUsers(300));
+
+        List<User> expected = userParser.readUsers(userFile.toString());
+        for (int chunkBytes : new int[]{1, 7, 64, 1000, 1 << 20}) {
+            List<User> actual = new UserFileParser(chunkBytes).readUsers(userFile.toString(), 4);
+            assertEquals(expected, actual, "chunk size " + chunkBytes);
+        }
+        assertEquals(300, expected.size());
+    }
+
+    @Test
+    @DisplayName("Test parallel parsing reports the global line of a malformed header")
+    public void testReadUsersParallel_ErrorLineNumber() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        String content = generatedUsers(100);
+        long lines = content.lines().count();
+        Files.writeString(userFile, content + "\nBroken line without id\nM1\n" + generatedUsers(50));
+
+        for (int chunkBytes : new int[]{5, 100, 1 << 20}) {
+            Exception exception = assertThrows(Exception.class,
+                    () -> new UserFileParser(chunkBytes).readUsers(userFile.toString(), 3));
+            assertEquals("ERROR: Wrong user line format:  Broken line without id (line " + (lines + 2) + ")",
+                    exception.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Test parallel parsing reports a missing watched line")
+    public void testReadUsersParallel_MissingWatchedLine() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, "John Doe,111111111\nTC1\nJane Roe,222222222");
+
+        Exception exception = assertThrows(Exception.class,
+                () -> new UserFileParser(4).readUsers(userFile.toString(), 2));
+
+        assertEquals("ERROR: Watched movies missing for user: Jane Roe (line 3)", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Test parallel parsing of an empty file")
+    public void testReadUsersParallel_EmptyFile() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, "");
+
+        assertTrue(userParser.readUsers(userFile.toString(), 2).isEmpty());
+    }
+
+    // ===================== STREAMING TESTS =====================
+
+    @Test
+    @DisplayName("Test streamed users match the parsed list")
+    public void testStreamUsers_MatchesReadUsers() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, generatedUsers(300));
+
+        List<User> streamed;
+        try (Stream<User> users = userParser.streamUsers(userFile.toString())) {
+            streamed = users.toList();
+        }
+
+        assertEquals(userParser.readUsers(userFile.toString()), streamed);
+    }
+
+    @Test
+    @DisplayName("Test the parallel stream yields the sequential users group by group")
+    public void testStreamUsersParallel_MatchesSequential() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, generatedUsers(300) + "Broken line\nTC1\n");
+        Path validFile = tempDir.resolve("valid.txt");
+        Files.writeString(validFile, generatedUsers(300));
+        List<User> expected = userParser.readUsers(validFile.toString());
+
+        // ranges of 50 bytes, 3 per group: many groups are yielded before the malformed record
+        List<User> yielded = new ArrayList<>();
+        try (Stream<User> users = new UserFileParser(50).streamUsers(userFile.toString(), 3)) {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> users.forEach(yielded::add));
+            assertTrue(exception.getMessage().startsWith("ERROR: Wrong user line format:  Broken line (line "));
+        }
+        assertTrue(yielded.size() > 250 && yielded.size() < 300);
+        assertEquals(expected.subList(0, yielded.size()), yielded);
+    }
+
+    @Test
+    @DisplayName("Test a malformed record surfaces only when the stream reaches it")
+    public void testStreamUsers_ErrorAtRecord() throws Exception {
+        Path userFile = tempDir.resolve("users.txt");
+        Files.writeString(userFile, "John Doe,111111111\nTC1\nBroken line\nTC2\nJane Roe,222222222\nTC3\n");
+
+        try (Stream<User> users = userParser.streamUsers(userFile.toString())) {
+            Iterator<User> iterator = users.iterator();
+            assertEquals("John Doe", iterator.next().name());
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, iterator::next);
+            assertEquals("ERROR: Wrong user line format:  Broken line (line 3)", exception.getMessage());
+        }
+    }
+}
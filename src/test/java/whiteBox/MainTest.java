@@ -1005,4 +1005,61 @@ public class MainTest {
             if (usersBackup != null) Files.writeString(usersPath, usersBackup);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * TC_MAIN_18: Path - Malformed user record after an invalid user
+     *
+     * Purpose: Cover the path where a user fails validation and a later
+     *          record of the users file is malformed
+     * Path: Parse movies → validate all → parse users → first user fails →
+     *       rest of the file parsed → parse error reported instead
+     *
+     * Path Coverage: The parse error wins whether the malformed record is
+     * parsed in the same group of ranges as the invalid user or in a later one
+     */
+    @Test
+    @DisplayName("TC_MAIN_18 – Path: parse error wins over an earlier invalid user")
+    void testPathCoverage_TC18_ParseErrorAfterInvalidUser() throws Exception {
+        // Arrange
+        Path resourcesDir = Path.of("src/main/resources");
+        Files.createDirectories(resourcesDir);
+
+        Path moviesPath = resourcesDir.resolve("movies.txt");
+        Path usersPath = resourcesDir.resolve("users.txt");
+
+        String moviesBackup = Files.exists(moviesPath) ? Files.readString(moviesPath) : null;
+        String usersBackup = Files.exists(usersPath) ? Files.readString(usersPath) : null;
+
+        // small ranges, so the far record lands in a later group on any machine
+        System.setProperty("recommendations.chunkBytes", "64");
+        try {
+            Files.writeString(moviesPath,
+                    """
+                    The Matrix,TM123
+                    Action
+                    """);
+
+            // Invalid user (name starts with space), then a header without an ID
+            String invalidUser = " John Doe,123456789\nTM123\n";
+            String malformed = "Broken Record\nTM123\n";
+            String farGap = "Jane Smith,987654321\nTM123\n".repeat(64 * Runtime.getRuntime().availableProcessors());
+
+            for (String users : new String[]{invalidUser + malformed, invalidUser + farGap + malformed}) {
+                Files.writeString(usersPath, users);
+
+                // Act: Run main
+                Main.main(new String[]{});
+
+                // Assert: No user validation error; the parse error leaves no recommendations
+                assertTrue(Files.exists(outputFile), "Output file should exist");
+                String content = Files.readString(outputFile);
+                assertFalse(content.contains("ERROR"), "Parse error should win over the user error");
+            }
+
+        } finally {
+            System.clearProperty("recommendations.chunkBytes");
+            if (moviesBackup != null) Files.writeString(moviesPath, moviesBackup);
+            if (usersBackup != null) Files.writeString(usersPath, usersBackup);
+        }
+    }
+}